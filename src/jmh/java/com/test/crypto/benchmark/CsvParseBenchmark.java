@@ -0,0 +1,60 @@
+package com.test.crypto.benchmark;
+
+import com.test.crypto.service.CsvProcessor;
+import com.test.crypto.store.PriceSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CsvProcessor.processCsv on one synthetic file of each size, parsed sequentially or in chunks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParseBenchmark {
+
+    private static final String CURRENCY = "BTC";
+
+    @Param({"10000", "1000000", "50000000"})
+    private long rows;
+
+    // files above the chunk size are parsed in chunks on several cores
+    @Param({"8MB", "8GB"})
+    private String chunkSize;
+
+    private Path directory;
+
+    private CsvProcessor csvProcessor;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("prices");
+        SyntheticPrices.write(directory.resolve(CURRENCY + SyntheticPrices.FILE_SUFFIX), CURRENCY, rows, 1);
+        csvProcessor = Fixtures.csvProcessor(directory);
+        ReflectionTestUtils.setField(csvProcessor, "chunkSize", DataSize.parse(chunkSize));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticPrices.delete(directory);
+    }
+
+    @Benchmark
+    public PriceSeries processCsv() {
+        return csvProcessor.processCsv(CURRENCY);
+    }
+}
@@ -0,0 +1,64 @@
+package com.test.crypto.benchmark;
+
+import com.test.crypto.cluster.ClusterRole;
+import com.test.crypto.cluster.ShardPartitioner;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.service.CorrelationCalculator;
+import com.test.crypto.service.CryptoServiceImpl;
+import com.test.crypto.service.CsvProcessor;
+import com.test.crypto.service.ParallelEvaluator;
+import com.test.crypto.service.QueryCache;
+import com.test.crypto.service.SingleFlight;
+import com.test.crypto.store.PriceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Wires the service outside of Spring over a directory of synthetic price files
+ */
+final class Fixtures {
+
+    private static final CryptoMetrics METRICS = new CryptoMetrics(new SimpleMeterRegistry());
+
+    private Fixtures() {
+    }
+
+    static CsvProcessor csvProcessor(final Path directory) {
+        CsvProcessor csvProcessor = new CsvProcessor(METRICS, ForkJoinPool.commonPool());
+        ReflectionTestUtils.setField(csvProcessor, "fileSuffix", SyntheticPrices.FILE_SUFFIX);
+        ReflectionTestUtils.setField(csvProcessor, "directory", "/prices");
+        ReflectionTestUtils.setField(csvProcessor, "filesystemDirectory", directory.toString());
+        ReflectionTestUtils.setField(csvProcessor, "snapshotSuffix", "_values.bin");
+        ReflectionTestUtils.setField(csvProcessor, "snapshotDirectory", "");
+        ReflectionTestUtils.setField(csvProcessor, "chunkSize", DataSize.ofMegabytes(64));
+        ReflectionTestUtils.setField(csvProcessor, "compression", false);
+        return csvProcessor;
+    }
+
+    static PriceStore priceStore(final Path directory, final List<String> currencies) {
+        PriceStore priceStore = new PriceStore(csvProcessor(directory), METRICS,
+                new ShardPartitioner(ClusterRole.STANDALONE, List.of(), 0), ForkJoinPool.commonPool());
+        ReflectionTestUtils.setField(priceStore, "supportedCurrency", String.join(",", currencies));
+        priceStore.load();
+        return priceStore;
+    }
+
+    /**
+     * Builds the service with a zero sized result cache, so that every call computes its result
+     * @param priceStore
+     * @param executor
+     * @return CryptoServiceImpl
+     */
+    static CryptoServiceImpl cryptoService(final PriceStore priceStore, final ExecutorService executor) {
+        ParallelEvaluator parallelEvaluator = new ParallelEvaluator(executor);
+        return new CryptoServiceImpl(priceStore, parallelEvaluator,
+                new QueryCache(new SimpleMeterRegistry(), 0), METRICS, new CorrelationCalculator(parallelEvaluator),
+                new SingleFlight(METRICS));
+    }
+}
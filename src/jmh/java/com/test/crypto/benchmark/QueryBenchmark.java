@@ -0,0 +1,77 @@
+package com.test.crypto.benchmark;
+
+import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.Statistics;
+import com.test.crypto.service.CryptoServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the query paths of the service over synthetic currencies sharing the total number of rows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    @Param({"10000", "1000000", "50000000"})
+    private long rows;
+
+    @Param({"5", "100", "1000"})
+    private int currencies;
+
+    private Path directory;
+
+    private ExecutorService executor;
+
+    private CryptoServiceImpl cryptoService;
+
+    private String date;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("prices");
+        List<String> symbols = SyntheticPrices.generate(directory, currencies, rows);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        cryptoService = Fixtures.cryptoService(Fixtures.priceStore(directory, symbols), executor);
+        date = Instant.ofEpochMilli(SyntheticPrices.START_MILLIS).atZone(ZoneOffset.UTC).toLocalDate().toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        SyntheticPrices.delete(directory);
+    }
+
+    @Benchmark
+    public Statistics gatherStatistics() {
+        return cryptoService.fetchStatistics("C0");
+    }
+
+    @Benchmark
+    public HighestNormalizedData findHighestNormalizedCrypto() {
+        return cryptoService.findHighestNormalizedCrypto(date);
+    }
+
+    @Benchmark
+    public List<HighestNormalizedData> sortedNormalizedList() {
+        return cryptoService.sortedNormalizedList();
+    }
+}
@@ -0,0 +1,72 @@
+package com.test.crypto.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic {@code <CURRENCY>_values.csv} files: one row per minute from 2022-01-01 UTC
+ * following a random walk with two decimals
+ */
+final class SyntheticPrices {
+
+    static final String FILE_SUFFIX = "_values.csv";
+
+    static final long START_MILLIS = 1640995200000L;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private SyntheticPrices() {
+    }
+
+    /**
+     * Writes the given number of currencies sharing the total number of rows
+     * @param directory
+     * @param currencies
+     * @param totalRows
+     * @return generated currency symbols
+     * @throws IOException
+     */
+    static List<String> generate(final Path directory, final int currencies, final long totalRows) throws IOException {
+        List<String> symbols = new ArrayList<>(currencies);
+        long rowsPerCurrency = Math.max(1, totalRows / currencies);
+        for (int i = 0; i < currencies; i++) {
+            String symbol = "C" + i;
+            write(directory.resolve(symbol + FILE_SUFFIX), symbol, rowsPerCurrency, i);
+            symbols.add(symbol);
+        }
+        return symbols;
+    }
+
+    static void write(final Path file, final String symbol, final long rows, final long seed) throws IOException {
+        Random random = new Random(seed);
+        long cents = 1_000_000 + random.nextInt(1_000_000);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("timestamp,symbol,price\n");
+            for (long row = 0; row < rows; row++) {
+                cents = Math.max(1, cents + random.nextInt(2001) - 1000);
+                writer.write(Long.toString(START_MILLIS + row * MINUTE_MILLIS));
+                writer.write(',');
+                writer.write(symbol);
+                writer.write(',');
+                writer.write(Long.toString(cents / 100));
+                writer.write('.');
+                writer.write(Character.forDigit((int) (cents / 10 % 10), 10));
+                writer.write(Character.forDigit((int) (cents % 10), 10));
+                writer.write('\n');
+            }
+        }
+    }
+
+    static void delete(final Path directory) throws IOException {
+        try (var files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.test.crypto.benchmark;
+
+import com.test.crypto.ingest.StoreTickIngestor;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.model.PriceTick;
+import com.test.crypto.model.Statistics;
+import com.test.crypto.service.CryptoServiceImpl;
+import com.test.crypto.store.PriceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures tick ingestion into one series while other threads keep querying time windows of it
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TickIngestBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final long TICK_MILLIS = 1000;
+
+    private Path directory;
+
+    private ExecutorService executor;
+
+    private StoreTickIngestor tickIngestor;
+
+    private CryptoServiceImpl cryptoService;
+
+    private final AtomicLong timestamp = new AtomicLong(SyntheticPrices.START_MILLIS + TimeUnit.DAYS.toMillis(3650));
+
+    private long windowStart;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("prices");
+        List<String> symbols = SyntheticPrices.generate(directory, 5, 1_000_000);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        PriceStore priceStore = Fixtures.priceStore(directory, symbols);
+        tickIngestor = new StoreTickIngestor(priceStore, new CryptoMetrics(new SimpleMeterRegistry()));
+        cryptoService = Fixtures.cryptoService(priceStore, executor);
+        windowStart = SyntheticPrices.START_MILLIS;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        SyntheticPrices.delete(directory);
+    }
+
+    /**
+     * One operation appends a batch of BATCH_SIZE ticks
+     */
+    @Benchmark
+    @Group("ingestWhileQuerying")
+    @GroupThreads(1)
+    public int ingest() {
+        PriceTick[] ticks = new PriceTick[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ticks[i] = new PriceTick("C0", timestamp.addAndGet(TICK_MILLIS), BigDecimal.valueOf(40_000 + i, 2));
+        }
+        return tickIngestor.ingest(List.of(ticks));
+    }
+
+    @Benchmark
+    @Group("ingestWhileQuerying")
+    @GroupThreads(3)
+    public Statistics query() {
+        return cryptoService.fetchStatistics("C0", windowStart, timestamp.get() + 1);
+    }
+}
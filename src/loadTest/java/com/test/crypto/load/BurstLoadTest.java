@@ -0,0 +1,95 @@
+package com.test.crypto.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fires bursts of concurrent requests at the api and logs their throughput and latency percentiles, so that
+ * the execution modes can be compared. These are benchmarks that only fail when a request does, so they live in
+ * the loadTest source set and run with ./gradlew loadTest rather than with the tests.
+ */
+abstract class BurstLoadTest {
+
+    private static final int CONCURRENCY = 512;
+
+    private static final int REQUESTS = 20_000;
+
+    // days of the sample files, each request picks one so that queries are not all cache hits
+    private static final long FIRST_DAY = 1640995200000L;
+
+    private static final long DAY = 86_400_000L;
+
+    @LocalServerPort
+    private int port;
+
+    private double elapsedSeconds;
+
+    @Test
+    void shouldServeBurstOfConcurrentRequests() throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        // warm up the caches and the JIT before measuring
+        run(client, REQUESTS / 10);
+        long[] latencies = run(client, REQUESTS);
+
+        Arrays.sort(latencies);
+        System.out.printf("%s: %d requests, %d concurrent, %.0f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                getClass().getSimpleName(), REQUESTS, CONCURRENCY, REQUESTS / elapsedSeconds,
+                latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 99 / 100] / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private long[] run(final HttpClient client, final int requests) throws Exception {
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (int worker = 0; worker < CONCURRENCY; worker++) {
+                int first = worker;
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = first; i < requests; i += CONCURRENCY) {
+                        latencies[i] = call(client, i);
+                    }
+                }, callers));
+            }
+            CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        }
+        elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        return latencies;
+    }
+
+    private long call(final HttpClient client, final int request) {
+        long from = FIRST_DAY + (request % 26) * DAY;
+        String path = switch (request % 3) {
+            case 0 -> "/api/statistics?currency=BTC&from=" + from + "&to=" + (from + DAY);
+            case 1 -> "/api/normalized-list?from=" + from + "&to=" + (from + 4 * DAY);
+            default -> "/api/candles?currency=ETH&interval=HOUR&from=" + from + "&to=" + (from + DAY);
+        };
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+            Assertions.assertEquals(HttpStatus.OK.value(), response.statusCode(), path);
+        } catch (Exception ex) {
+            throw new AssertionError("Request " + path + " failed", ex);
+        }
+        return System.nanoTime() - start;
+    }
+}
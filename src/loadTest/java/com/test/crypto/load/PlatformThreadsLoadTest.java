@@ -0,0 +1,13 @@
+package com.test.crypto.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Burst against Tomcat's platform thread pool, capped so that the burst saturates it
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "crypto.execution.virtual-threads=false", "server.tomcat.threads.max=64" })
+@ActiveProfiles("it")
+class PlatformThreadsLoadTest extends BurstLoadTest {
+}
@@ -0,0 +1,13 @@
+package com.test.crypto.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Same burst served on virtual threads, under the same Tomcat configuration
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "crypto.execution.virtual-threads=true", "server.tomcat.threads.max=64" })
+@ActiveProfiles("it")
+class VirtualThreadsLoadTest extends BurstLoadTest {
+}
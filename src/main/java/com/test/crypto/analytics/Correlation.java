@@ -0,0 +1,176 @@
+package com.test.crypto.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pairwise return correlation of price series aligned on a common time grid. Returns are standardized once
+ * per series, so a correlation is a plain dot product of two contiguous double arrays. The dot product keeps
+ * four independent accumulators, which the JIT can pack into vector instructions, whereas a single
+ * floating point sum has to be evaluated in order.
+ */
+public final class Correlation {
+
+    private static final int DECIMALS = 4;
+
+    private Correlation() {
+    }
+
+    /**
+     * Returns the number of grid points shared by all series, from the latest first close to the earliest last one
+     * @param starts per series, the ascending grid points holding a close
+     * @param step millis between grid points
+     * @return grid points, 0 when a series is empty or the series do not overlap
+     */
+    public static long gridPoints(final long[][] starts, final long step) {
+        long first = Long.MIN_VALUE;
+        long last = Long.MAX_VALUE;
+        for (long[] seriesStarts : starts) {
+            if (seriesStarts.length == 0) {
+                return 0;
+            }
+            first = Math.max(first, seriesStarts[0]);
+            last = Math.min(last, seriesStarts[seriesStarts.length - 1]);
+        }
+        return last < first ? 0 : (last - first) / step + 1;
+    }
+
+    /**
+     * Aligns the closes of each series on the grid of step millis shared by all of them, carrying a close forward
+     * over the grid points without one, and returns their standardized simple returns
+     * @param starts per series, the ascending grid points holding a close
+     * @param closes per series, the close of each of those grid points
+     * @param step millis between grid points
+     * @return per series, the returns scaled to zero mean and unit norm, all NaN for a constant series,
+     * or null when the series share fewer than two grid points
+     */
+    public static double[][] standardizedReturns(final long[][] starts, final double[][] closes, final long step) {
+        int points = Math.toIntExact(gridPoints(starts, step));
+        if (points < 2) {
+            return null;
+        }
+        long first = Arrays.stream(starts).mapToLong(seriesStarts -> seriesStarts[0]).max().orElseThrow();
+
+        double[][] returns = new double[starts.length][points - 1];
+        double[] aligned = new double[points];
+        for (int series = 0; series < starts.length; series++) {
+            align(starts[series], closes[series], first, step, aligned);
+            double[] row = returns[series];
+            for (int k = 1; k < points; k++) {
+                row[k - 1] = aligned[k - 1] == 0 ? 0 : aligned[k] / aligned[k - 1] - 1;
+            }
+            standardize(row);
+        }
+        return returns;
+    }
+
+    /**
+     * Fills the closes of the grid starting at first, the grid point of the first close being at or before it
+     */
+    private static void align(final long[] starts, final double[] closes, final long first, final long step,
+                              final double[] aligned) {
+        int next = 0;
+        double close = 0;
+        for (int k = 0; k < aligned.length; k++) {
+            long point = first + k * step;
+            while (next < starts.length && starts[next] <= point) {
+                close = closes[next++];
+            }
+            aligned[k] = close;
+        }
+    }
+
+    private static void standardize(final double[] row) {
+        double sum = 0;
+        for (double value : row) {
+            sum += value;
+        }
+        double mean = sum / row.length;
+        double squares = 0;
+        for (int k = 0; k < row.length; k++) {
+            row[k] -= mean;
+            squares += row[k] * row[k];
+        }
+        // a constant series has no correlation, NaN propagates through its dot products
+        double norm = squares == 0 ? Double.NaN : Math.sqrt(squares);
+        for (int k = 0; k < row.length; k++) {
+            row[k] /= norm;
+        }
+    }
+
+    /**
+     * Correlates a series with every series up to itself
+     * @param returns standardized returns
+     * @param series
+     * @return correlations with series 0 to series, NaN when either series is constant
+     */
+    public static double[] lowerRow(final double[][] returns, final int series) {
+        double[] row = new double[series + 1];
+        double[] a = returns[series];
+        for (int other = 0; other <= series; other++) {
+            // rounding may take a correlation slightly past 1
+            row[other] = Math.max(-1, Math.min(1, dot(a, returns[other])));
+        }
+        return row;
+    }
+
+    private static double dot(final double[] a, final double[] b) {
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        int length = a.length;
+        int k = 0;
+        for (; k + 3 < length; k += 4) {
+            sum0 += a[k] * b[k];
+            sum1 += a[k + 1] * b[k + 1];
+            sum2 += a[k + 2] * b[k + 2];
+            sum3 += a[k + 3] * b[k + 3];
+        }
+        for (; k < length; k++) {
+            sum0 += a[k] * b[k];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Orders the rows so that contiguous batches of them hold about the same number of dot products, row i costing
+     * i + 1 of them, by pairing the first rows with the last ones
+     * @param rows
+     * @return row indexes
+     */
+    public static List<Integer> balancedOrder(final int rows) {
+        List<Integer> order = new ArrayList<>(rows);
+        for (int low = 0, high = rows - 1; low <= high; low++, high--) {
+            order.add(low);
+            if (low != high) {
+                order.add(high);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Mirrors the lower rows into the full symmetric matrix, rounding the correlations to 4 decimals
+     * @param lowerRows row i holding the correlations with series 0 to i
+     * @return rows of the matrix, null where a series is constant
+     */
+    public static List<List<BigDecimal>> matrix(final double[][] lowerRows) {
+        List<List<BigDecimal>> matrix = new ArrayList<>(lowerRows.length);
+        for (int i = 0; i < lowerRows.length; i++) {
+            List<BigDecimal> row = new ArrayList<>(lowerRows.length);
+            for (int j = 0; j < lowerRows.length; j++) {
+                double correlation = j <= i ? lowerRows[i][j] : lowerRows[j][i];
+                row.add(Double.isNaN(correlation) ? null
+                        : BigDecimal.valueOf(correlation).setScale(DECIMALS, RoundingMode.HALF_UP));
+            }
+            // not List.copyOf, which rejects the null of a constant series
+            matrix.add(Collections.unmodifiableList(row));
+        }
+        return Collections.unmodifiableList(matrix);
+    }
+}
@@ -0,0 +1,149 @@
+package com.test.crypto.analytics;
+
+/**
+ * Streaming analytics over the last {@code size} prices of a series, updated in O(1) amortized per price.
+ * The mean and variance are maintained with Welford's algorithm, adding the new price and removing the one
+ * leaving the window and recomputed from the window once it was entirely replaced, the window min and max with monotonic deques and the exponential moving average with a
+ * smoothing factor of 2 / (size + 1). Prices are unscaled longs sharing one scale.
+ */
+public class RollingWindow {
+
+    private final int size;
+
+    private final double alpha;
+
+    private final long[] prices;
+
+    // index of the next price, counting every price added
+    private long added;
+
+    private double mean;
+
+    private double m2;
+
+    private double ema;
+
+    // monotonic deques of price indexes, as ring buffers over the last size indexes
+    private final long[] minDeque;
+
+    private final long[] maxDeque;
+
+    private long minHead;
+
+    private long minTail;
+
+    private long maxHead;
+
+    private long maxTail;
+
+    public RollingWindow(final int size) {
+        this.size = size;
+        this.alpha = 2.0 / (size + 1);
+        this.prices = new long[size];
+        this.minDeque = new long[size + 1];
+        this.maxDeque = new long[size + 1];
+    }
+
+    /**
+     * Slides the window over the next price
+     * @param price unscaled
+     */
+    public void add(final long price) {
+        int count = count();
+        if (count == size) {
+            // Welford's update in reverse for the price leaving the window
+            long leaving = prices[(int) (added % size)];
+            double delta = leaving - mean;
+            mean -= delta / (count - 1);
+            m2 -= delta * (leaving - mean);
+            count--;
+        }
+        double delta = price - mean;
+        mean += delta / (count + 1);
+        m2 += delta * (price - mean);
+        ema = added == 0 ? price : ema + alpha * (price - ema);
+
+        prices[(int) (added % size)] = price;
+        minTail = push(minDeque, minHead, minTail, price, true);
+        maxTail = push(maxDeque, maxHead, maxTail, price, false);
+        added++;
+        if (added % size == 0) {
+            recompute();
+        }
+        // drop the indexes that left the window
+        if (minDeque[(int) (minHead % minDeque.length)] <= added - 1 - size) {
+            minHead++;
+        }
+        if (maxDeque[(int) (maxHead % maxDeque.length)] <= added - 1 - size) {
+            maxHead++;
+        }
+    }
+
+    /**
+     * Recomputes the mean and the sum of squared deviations from the window, once every size prices so that it
+     * stays O(1) amortized, as removing prices lets rounding errors accumulate when prices move by orders of magnitude
+     */
+    private void recompute() {
+        int count = count();
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += prices[i];
+        }
+        mean = sum / count;
+        m2 = 0;
+        for (int i = 0; i < count; i++) {
+            m2 += (prices[i] - mean) * (prices[i] - mean);
+        }
+    }
+
+    /**
+     * Appends the current index to a deque after dropping the indexes whose price can no longer be its extreme
+     * @return the new tail
+     */
+    private long push(final long[] deque, final long head, final long tail, final long price, final boolean min) {
+        long end = tail;
+        while (end > head) {
+            // an index that just left the window reads the new price and is dropped as well
+            long last = prices[(int) (deque[(int) ((end - 1) % deque.length)] % size)];
+            if (min ? last < price : last > price) {
+                break;
+            }
+            end--;
+        }
+        deque[(int) (end % deque.length)] = added;
+        return end + 1;
+    }
+
+    /**
+     * Returns the number of prices in the window, fewer than its size until as many prices were added
+     * @return count
+     */
+    public int count() {
+        return (int) Math.min(added, size);
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns the sample standard deviation of the prices in the window, 0 for a single price
+     * @return standard deviation
+     */
+    public double standardDeviation() {
+        int count = count();
+        return count < 2 ? 0 : Math.sqrt(Math.max(0, m2) / (count - 1));
+    }
+
+    public double ema() {
+        return ema;
+    }
+
+    public long min() {
+        return prices[(int) (minDeque[(int) (minHead % minDeque.length)] % size)];
+    }
+
+    public long max() {
+        return prices[(int) (maxDeque[(int) (maxHead % maxDeque.length)] % size)];
+    }
+}
@@ -0,0 +1,22 @@
+package com.test.crypto.cluster;
+
+/**
+ * Role of an instance in a sharded deployment
+ */
+public enum ClusterRole {
+
+    /**
+     * Holds every supported currency and answers queries on its own
+     */
+    STANDALONE,
+
+    /**
+     * Holds the currencies hashed to its shard index
+     */
+    SHARD,
+
+    /**
+     * Holds no currency, fans queries out to the shards and merges their results
+     */
+    COORDINATOR
+}
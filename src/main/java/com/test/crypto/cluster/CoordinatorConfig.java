@@ -0,0 +1,25 @@
+package com.test.crypto.cluster;
+
+import com.test.crypto.store.CurrencyRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Registry of every supported currency, with which a coordinator validates requests before forwarding them.
+ * It is rebuilt on refresh, as the store of a standalone instance or a shard is.
+ */
+@Configuration
+@ConditionalOnProperty(name = "crypto.cluster.role", havingValue = "COORDINATOR")
+public class CoordinatorConfig {
+
+    @Bean
+    @RefreshScope
+    public CurrencyRegistry coordinatorRegistry(@Value("${supported}") final String supportedCurrency) {
+        return new CurrencyRegistry(List.of(supportedCurrency.split(",")));
+    }
+}
@@ -0,0 +1,276 @@
+package com.test.crypto.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.exception.RecordMissingInCsvException;
+import com.test.crypto.exception.ShardException;
+import com.test.crypto.model.Candle;
+import com.test.crypto.model.CandleInterval;
+import com.test.crypto.model.CorrelationMatrix;
+import com.test.crypto.model.DailyHighestNormalizedData;
+import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.RollingAnalytics;
+import com.test.crypto.model.Statistics;
+import com.test.crypto.model.StatisticsResult;
+import com.test.crypto.service.CorrelationCalculator;
+import com.test.crypto.service.CryptoService;
+import com.test.crypto.store.CurrencyRegistry;
+import com.test.crypto.util.DateUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Answers the queries of a coordinator from the shards. Single currency queries are forwarded to the shard
+ * holding the currency. Cross-currency queries are fanned out to every shard and their partial results
+ * merged, ties resolving on the supported order exactly as on a standalone instance. Correlations need the
+ * prices of currencies held by different shards, they are computed here from the candles of every currency.
+ */
+@Service
+@Primary
+@Slf4j
+@ConditionalOnProperty(name = "crypto.cluster.role", havingValue = "COORDINATOR")
+public class CoordinatorCryptoService implements CryptoService {
+
+    private static final TypeReference<Statistics> STATISTICS = new TypeReference<>() {
+    };
+
+    private static final TypeReference<Map<String, StatisticsResult>> STATISTICS_BATCH = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<DailyHighestNormalizedData>> DAILY_HIGHEST_NORMALIZED = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<HighestNormalizedData>> NORMALIZED_LIST = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<Candle>> CANDLES = new TypeReference<>() {
+    };
+
+    private static final TypeReference<RollingAnalytics> ROLLING_ANALYTICS = new TypeReference<>() {
+    };
+
+    private final ShardPartitioner shardPartitioner;
+
+    private final ShardClient shardClient;
+
+    private final CurrencyRegistry registry;
+
+    private final CorrelationCalculator correlationCalculator;
+
+    public CoordinatorCryptoService(final ShardPartitioner shardPartitioner, final ShardClient shardClient,
+                                    final CorrelationCalculator correlationCalculator, final CurrencyRegistry registry) {
+        this.shardPartitioner = shardPartitioner;
+        this.shardClient = shardClient;
+        this.correlationCalculator = correlationCalculator;
+        this.registry = registry;
+    }
+
+    @Override
+    public Statistics fetchStatistics(final String currency) {
+        return ShardClient.join(shardClient.get(shardOf(currency), "/api/statistics",
+                params("currency", currency), STATISTICS));
+    }
+
+    @Override
+    public Statistics fetchStatistics(final String currency, final long from, final long to) {
+        return ShardClient.join(shardClient.get(shardOf(currency), "/api/statistics",
+                window(params("currency", currency), from, to), STATISTICS));
+    }
+
+    @Override
+    public Map<String, StatisticsResult> fetchStatistics(final List<String> currencies, final long from, final long to) {
+
+        validateWindow(from, to);
+        List<String> distinctCurrencies = currencies.stream().distinct().toList();
+
+        // one request per shard holding some of the currencies, a failing shard only fails its own currencies
+        Map<Integer, List<String>> currenciesByShard = new LinkedHashMap<>();
+        for (String currency : distinctCurrencies) {
+            if (registry.contains(currency)) {
+                currenciesByShard.computeIfAbsent(shardPartitioner.shardOf(currency), shard -> new ArrayList<>()).add(currency);
+            }
+        }
+        Map<Integer, CompletableFuture<Map<String, StatisticsResult>>> responses = new LinkedHashMap<>();
+        currenciesByShard.forEach((shard, shardCurrencies) -> responses.put(shard, shardClient.post(shard,
+                "/api/statistics/batch", window(new LinkedHashMap<>(), from, to), shardCurrencies, STATISTICS_BATCH)));
+
+        Map<String, StatisticsResult> statistics = new LinkedHashMap<>();
+        distinctCurrencies.forEach(currency -> statistics.put(currency, StatisticsResult.failed("Currency not supported")));
+        responses.forEach((shard, response) -> {
+            try {
+                statistics.putAll(ShardClient.join(response));
+            } catch (ShardException ex) {
+                currenciesByShard.get(shard).forEach(currency -> statistics.put(currency, StatisticsResult.failed(ex.getMessage())));
+            }
+        });
+        return statistics;
+    }
+
+    @Override
+    public HighestNormalizedData findHighestNormalizedCrypto(final String date) {
+        return findHighestNormalizedCrypto(date, false);
+    }
+
+    @Override
+    public HighestNormalizedData findHighestNormalizedCrypto(final String date, final boolean skipMissing) {
+
+        List<DailyHighestNormalizedData> leaders = findHighestNormalizedCryptoPerDay(date, date, skipMissing);
+        if (leaders.isEmpty()) {
+            throw new RecordMissingInCsvException("No record found in csv files for date " + date);
+        }
+        return new HighestNormalizedData(leaders.get(0).normalizedRange(), leaders.get(0).currency());
+    }
+
+    @Override
+    public List<DailyHighestNormalizedData> findHighestNormalizedCryptoPerDay(final String from, final String to,
+                                                                          final boolean skipMissing) {
+
+        DateUtil.validateDate(from);
+        DateUtil.validateDate(to);
+
+        // a shard leaves out the days on which none of its currencies has a price
+        Map<String, DailyHighestNormalizedData> leaders = new TreeMap<>();
+        for (List<DailyHighestNormalizedData> partial : shardClient.getAll("/api/max-normalized-range/daily",
+                params("from", from, "to", to, "skipMissing", skipMissing), DAILY_HIGHEST_NORMALIZED)) {
+            for (DailyHighestNormalizedData candidate : partial) {
+                leaders.merge(candidate.date(), candidate, this::higher);
+            }
+        }
+        return List.copyOf(leaders.values());
+    }
+
+    private DailyHighestNormalizedData higher(final DailyHighestNormalizedData a, final DailyHighestNormalizedData b) {
+        // a later currency wins a tie, as on a standalone instance
+        int comparison = b.normalizedRange().compareTo(a.normalizedRange());
+        return comparison > 0 || comparison == 0 && registry.id(b.currency()) > registry.id(a.currency()) ? b : a;
+    }
+
+    @Override
+    public List<HighestNormalizedData> sortedNormalizedList() {
+        return sortedNormalizedList(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<HighestNormalizedData> sortedNormalizedList(final int offset, final int limit) {
+
+        validatePage(offset, limit);
+
+        return merge(shardClient.getAll("/api/normalized-list", page(offset, limit), NORMALIZED_LIST), offset, limit);
+    }
+
+    @Override
+    public List<HighestNormalizedData> sortedNormalizedList(final long from, final long to, final int offset, final int limit) {
+
+        validatePage(offset, limit);
+        validateWindow(from, to);
+
+        return merge(shardClient.getAll("/api/normalized-list", window(page(offset, limit), from, to), NORMALIZED_LIST),
+                offset, limit);
+    }
+
+    @Override
+    public List<Candle> candles(final String currency, final CandleInterval interval, final long from, final long to) {
+        return ShardClient.join(shardClient.get(shardOf(currency), "/api/candles",
+                window(params("currency", currency, "interval", interval.name()), from, to), CANDLES));
+    }
+
+    @Override
+    public RollingAnalytics rollingAnalytics(final String currency, final int window, final long from, final long to) {
+        return ShardClient.join(shardClient.get(shardOf(currency), "/api/analytics",
+                window(params("currency", currency, "window", window), from, to), ROLLING_ANALYTICS));
+    }
+
+    @Override
+    public CorrelationMatrix correlation(final List<String> currencies, final CandleInterval interval,
+                                         final long from, final long to) {
+
+        validateWindow(from, to);
+        List<String> distinctCurrencies = (currencies.isEmpty() ? registry.symbols() : currencies)
+                .stream().distinct().toList();
+
+        // the candles of all currencies are requested at once
+        List<CompletableFuture<List<Candle>>> responses = distinctCurrencies.stream()
+                .map(currency -> shardClient.get(shardOf(currency), "/api/candles",
+                        window(params("currency", currency, "interval", interval.name()), from, to), CANDLES))
+                .toList();
+        long[][] starts = new long[distinctCurrencies.size()][];
+        double[][] closes = new double[distinctCurrencies.size()][];
+        for (int i = 0; i < responses.size(); i++) {
+            List<Candle> candles = ShardClient.join(responses.get(i));
+            starts[i] = candles.stream().mapToLong(Candle::timestamp).toArray();
+            closes[i] = candles.stream().mapToDouble(candle -> candle.close().doubleValue()).toArray();
+        }
+        return correlationCalculator.correlate(distinctCurrencies, interval, starts, closes, from, to);
+    }
+
+    /**
+     * Merges the sorted partial lists of the shards into a page of the overall list
+     * @param partialLists
+     * @param offset
+     * @param limit
+     * @return list of HighestNormalizedData
+     */
+    private List<HighestNormalizedData> merge(final List<List<HighestNormalizedData>> partialLists,
+                                              final int offset, final int limit) {
+        return partialLists.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(HighestNormalizedData::normalizedRange).reversed()
+                        .thenComparingInt(data -> registry.id(data.currency())))
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    private int shardOf(final String currency) {
+        // check if the currency is supported or not
+        registry.id(currency);
+        return shardPartitioner.shardOf(currency);
+    }
+
+    /**
+     * Every shard returns its first offset + limit currencies, which hold the requested page once merged
+     * @param offset
+     * @param limit
+     * @return query parameters
+     */
+    private static Map<String, Object> page(final int offset, final int limit) {
+        long shardLimit = (long) offset + limit;
+        return params("offset", 0, "limit", shardLimit >= Integer.MAX_VALUE ? null : shardLimit);
+    }
+
+    private static Map<String, Object> window(final Map<String, Object> params, final long from, final long to) {
+        params.put("from", from == Long.MIN_VALUE ? null : from);
+        params.put("to", to == Long.MAX_VALUE ? null : to);
+        return params;
+    }
+
+    private static Map<String, Object> params(final Object... namesAndValues) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            params.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    private static void validatePage(final int offset, final int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new InvalidParameterException("Offset and limit must not be negative");
+        }
+    }
+
+    private static void validateWindow(final long from, final long to) {
+        if (from >= to) {
+            throw new InvalidParameterException("Time window start must be before its end");
+        }
+    }
+}
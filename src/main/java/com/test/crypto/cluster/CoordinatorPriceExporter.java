@@ -0,0 +1,67 @@
+package com.test.crypto.cluster;
+
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.model.ExportFormat;
+import com.test.crypto.service.PriceExporter;
+import com.test.crypto.store.CurrencyRegistry;
+import com.test.crypto.store.PriceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relays the exports of the shards holding the requested currencies, currency by currency. Currencies are
+ * checked up front, so an unsupported one fails the request before any row is written. A shard failing once
+ * rows were written can only abort the response.
+ */
+@Service
+@Primary
+@Slf4j
+@ConditionalOnProperty(name = "crypto.cluster.role", havingValue = "COORDINATOR")
+public class CoordinatorPriceExporter extends PriceExporter {
+
+    private final ShardPartitioner shardPartitioner;
+
+    private final ShardClient shardClient;
+
+    private final CurrencyRegistry registry;
+
+    public CoordinatorPriceExporter(final PriceStore priceStore, final ShardPartitioner shardPartitioner,
+                                    final ShardClient shardClient, final CurrencyRegistry registry) {
+        super(priceStore);
+        this.shardPartitioner = shardPartitioner;
+        this.shardClient = shardClient;
+        this.registry = registry;
+    }
+
+    @Override
+    public StreamingResponseBody export(final List<String> currencies, final long from, final long to,
+                                        final ExportFormat format) {
+
+        if (from >= to) {
+            throw new InvalidParameterException("Time window start must be before its end");
+        }
+        List<String> distinctCurrencies = currencies.stream().distinct().toList();
+        // check if the currencies are supported or not
+        distinctCurrencies.forEach(registry::id);
+
+        return out -> {
+            for (String currency : distinctCurrencies) {
+                Map<String, Object> params = new LinkedHashMap<>();
+                params.put("currency", currency);
+                params.put("from", from);
+                params.put("to", to);
+                params.put("format", format);
+                shardClient.stream(shardPartitioner.shardOf(currency), "/api/export", params, format.mediaType(), out);
+            }
+            out.flush();
+            log.debug("Relayed the export of currencies {}", distinctCurrencies);
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.test.crypto.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.ingest.TickIngestor;
+import com.test.crypto.model.PriceTick;
+import com.test.crypto.store.CurrencyRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Forwards the ticks received by a coordinator to the shards holding their currency. A batch is split by shard
+ * and the parts are sent concurrently. Each shard appends its part as a whole or rejects it, so a batch spanning
+ * several shards is partially appended when one shard rejects its part.
+ */
+@Component
+@Primary
+@Slf4j
+@ConditionalOnProperty(name = "crypto.cluster.role", havingValue = "COORDINATOR")
+public class CoordinatorTickIngestor implements TickIngestor {
+
+    private static final TypeReference<Void> NO_CONTENT = new TypeReference<>() {
+    };
+
+    private final ShardPartitioner shardPartitioner;
+
+    private final ShardClient shardClient;
+
+    private final CurrencyRegistry registry;
+
+    public CoordinatorTickIngestor(final ShardPartitioner shardPartitioner, final ShardClient shardClient,
+                                   final CurrencyRegistry registry) {
+        this.shardPartitioner = shardPartitioner;
+        this.shardClient = shardClient;
+        this.registry = registry;
+    }
+
+    @Override
+    public void ingest(final PriceTick tick) {
+        ingest(List.of(tick));
+    }
+
+    @Override
+    public int ingest(final List<PriceTick> ticks) {
+
+        // ticks that every shard would reject fail the batch before any part is sent
+        Map<Integer, List<PriceTick>> ticksByShard = new TreeMap<>();
+        for (PriceTick tick : ticks) {
+            registry.id(tick.currency());
+            if (null == tick.price() || tick.price().signum() <= 0) {
+                throw new InvalidParameterException("Price of a tick must be positive");
+            }
+            ticksByShard.computeIfAbsent(shardPartitioner.shardOf(tick.currency()), shard -> new ArrayList<>()).add(tick);
+        }
+
+        List<CompletableFuture<Void>> responses = ticksByShard.entrySet().stream()
+                .map(shardTicks -> shardClient.post(shardTicks.getKey(), "/api/ticks", Map.of(), shardTicks.getValue(),
+                        NO_CONTENT))
+                .toList();
+        responses.forEach(ShardClient::join);
+        log.debug("Forwarded {} ticks to {} shards", ticks.size(), ticksByShard.size());
+        return ticks.size();
+    }
+}
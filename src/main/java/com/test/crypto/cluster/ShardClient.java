@@ -0,0 +1,227 @@
+package com.test.crypto.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.crypto.exception.ExceptionResponse;
+import com.test.crypto.exception.ShardException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Calls the api of the shards on behalf of the coordinator. Every call is bounded by the shard timeout, and
+ * errors answered by a shard are rethrown with its status and message so the client sees them unchanged.
+ */
+@Component
+@Slf4j
+public class ShardClient {
+
+    private final ShardPartitioner shardPartitioner;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+
+    public ShardClient(final ShardPartitioner shardPartitioner, final ObjectMapper objectMapper,
+                       @Value("${crypto.cluster.timeout:2s}") final Duration timeout) {
+        this.shardPartitioner = shardPartitioner;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * Sends a GET request to one shard
+     * @param shard index of the shard
+     * @param path
+     * @param params query parameters, null values are left out and collections repeat the parameter
+     * @param type of the response body
+     * @return response body
+     */
+    public <T> CompletableFuture<T> get(final int shard, final String path, final Map<String, ?> params,
+                                        final TypeReference<T> type) {
+        return send(shard, HttpRequest.newBuilder(uri(shard, path, params)).GET(), type);
+    }
+
+    /**
+     * Sends a POST request with a json body to one shard
+     * @param shard index of the shard
+     * @param path
+     * @param params query parameters, null values are left out and collections repeat the parameter
+     * @param body serialized as json
+     * @param type of the response body
+     * @return response body
+     */
+    public <T> CompletableFuture<T> post(final int shard, final String path, final Map<String, ?> params,
+                                         final Object body, final TypeReference<T> type) {
+        try {
+            return send(shard, HttpRequest.newBuilder(uri(shard, path, params))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))), type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends a GET request to one shard and copies the response body to the output as it arrives, so that a
+     * long response is relayed in constant memory. Only the response headers are bounded by the shard timeout.
+     * @param shard index of the shard
+     * @param path
+     * @param params query parameters, null values are left out and collections repeat the parameter
+     * @param mediaType accepted media type of the response
+     * @param out
+     * @throws IOException
+     */
+    public void stream(final int shard, final String path, final Map<String, ?> params, final MediaType mediaType,
+                       final OutputStream out) throws IOException {
+        String url = shardPartitioner.shards().get(shard);
+        // errors are answered as json
+        HttpRequest request = HttpRequest.newBuilder(uri(shard, path, params))
+                .timeout(timeout)
+                .header("Accept", mediaType + ", " + MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = join(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((received, failure) -> {
+                    if (null != failure) {
+                        throw shardFailure(url, failure instanceof CompletionException ? failure.getCause() : failure);
+                    }
+                    return received;
+                }));
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw shardError(url, response.statusCode(), body.readAllBytes());
+            }
+            body.transferTo(out);
+        }
+    }
+
+    /**
+     * Sends the same GET request to every shard concurrently and waits for all of them
+     * @param path
+     * @param params
+     * @param type of the response body
+     * @return response bodies in shard order
+     */
+    public <T> List<T> getAll(final String path, final Map<String, ?> params, final TypeReference<T> type) {
+        List<CompletableFuture<T>> responses = IntStream.range(0, shardPartitioner.shards().size())
+                .mapToObj(shard -> get(shard, path, params, type))
+                .toList();
+        return responses.stream().map(ShardClient::join).toList();
+    }
+
+    /**
+     * Waits for a response, rethrowing the failure of the shard
+     * @param response
+     * @return response body
+     */
+    public static <T> T join(final CompletableFuture<T> response) {
+        try {
+            return response.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private <T> CompletableFuture<T> send(final int shard, final HttpRequest.Builder request,
+                                          final TypeReference<T> type) {
+        String url = shardPartitioner.shards().get(shard);
+        return httpClient.sendAsync(request.timeout(timeout).header("Accept", MediaType.APPLICATION_JSON_VALUE).build(),
+                        HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, failure) -> {
+                    if (null != failure) {
+                        throw shardFailure(url, failure instanceof CompletionException ? failure.getCause() : failure);
+                    }
+                    return read(url, response, type);
+                });
+    }
+
+    private <T> T read(final String url, final HttpResponse<byte[]> response, final TypeReference<T> type) {
+        if (response.statusCode() == HttpStatus.NO_CONTENT.value()) {
+            return null;
+        }
+        if (response.statusCode() != HttpStatus.OK.value()) {
+            throw shardError(url, response.statusCode(), response.body());
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            log.warn("Unreadable response of shard {}: {}", url, e.getMessage());
+            throw new ShardException("Unreadable response of shard " + url, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    /**
+     * Returns the error answered by a shard, with its status and message
+     * @param url of the shard
+     * @param statusCode
+     * @param body
+     * @return ShardException
+     */
+    private ShardException shardError(final String url, final int statusCode, final byte[] body) {
+        try {
+            HttpStatus status = HttpStatus.resolve(statusCode);
+            String message = objectMapper.readValue(body, ExceptionResponse.class).message();
+            return new ShardException(message, null == status ? HttpStatus.BAD_GATEWAY : status);
+        } catch (IOException e) {
+            log.warn("Unreadable response of shard {}: {}", url, e.getMessage());
+            return new ShardException("Unreadable response of shard " + url, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    private ShardException shardFailure(final String url, final Throwable failure) {
+        if (failure instanceof ShardException shardException) {
+            return shardException;
+        }
+        if (failure instanceof TimeoutException || failure instanceof HttpTimeoutException) {
+            log.warn("Shard {} did not answer within {}", url, timeout);
+            return new ShardException("Shard " + url + " did not answer within " + timeout, HttpStatus.GATEWAY_TIMEOUT);
+        }
+        log.warn("Shard {} is unavailable: {}", url, failure.toString());
+        return new ShardException("Shard " + url + " is unavailable", HttpStatus.BAD_GATEWAY);
+    }
+
+    private URI uri(final int shard, final String path, final Map<String, ?> params) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        params.forEach((name, value) -> {
+            if (value instanceof Collection<?> values) {
+                values.forEach(v -> query.add(name + "=" + URLEncoder.encode(String.valueOf(v), StandardCharsets.UTF_8)));
+            } else if (null != value) {
+                query.add(name + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8));
+            }
+        });
+        return URI.create(shardPartitioner.shards().get(shard) + path + query);
+    }
+}
@@ -0,0 +1,68 @@
+package com.test.crypto.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Partitions the supported currencies across shards by hashing their symbol. String hashes are specified
+ * by the language, so every instance computes the same partition.
+ */
+@Component
+public class ShardPartitioner {
+
+    private final ClusterRole role;
+
+    private final List<String> shards;
+
+    private final int shardIndex;
+
+    public ShardPartitioner(@Value("${crypto.cluster.role:STANDALONE}") final ClusterRole role,
+                            @Value("${crypto.cluster.shards:}") final List<String> shards,
+                            @Value("${crypto.cluster.shard-index:0}") final int shardIndex) {
+        this.role = role;
+        this.shards = List.copyOf(shards);
+        this.shardIndex = shardIndex;
+        if (role != ClusterRole.STANDALONE && shards.isEmpty()) {
+            throw new IllegalStateException("crypto.cluster.shards must list the shard urls of a " + role);
+        }
+        if (role == ClusterRole.SHARD && (shardIndex < 0 || shardIndex >= shards.size())) {
+            throw new IllegalStateException("crypto.cluster.shard-index must be in [0, " + shards.size() + ")");
+        }
+    }
+
+    /**
+     * Returns the index of the shard holding the currency
+     * @param currency
+     * @return index into shards()
+     */
+    public int shardOf(final String currency) {
+        return Math.floorMod(currency.hashCode(), shards.size());
+    }
+
+    /**
+     * Tells whether this instance holds the prices of the currency
+     * @param currency
+     * @return true when the currency is loaded by this instance
+     */
+    public boolean owns(final String currency) {
+        return switch (role) {
+            case STANDALONE -> true;
+            case SHARD -> shardOf(currency) == shardIndex;
+            case COORDINATOR -> false;
+        };
+    }
+
+    public ClusterRole role() {
+        return role;
+    }
+
+    /**
+     * Returns the base urls of the shards, a currency being held by the shard at index shardOf(currency)
+     * @return urls
+     */
+    public List<String> shards() {
+        return shards;
+    }
+}
@@ -0,0 +1,21 @@
+package com.test.crypto.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Work stealing pool on which price files, and the chunks of large ones, are parsed in parallel. A file task
+ * waiting for its chunks lets the pool compensate with another worker, so nested tasks cannot starve it.
+ */
+@Configuration
+public class LoadExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService loadExecutor(@Value("${crypto.load.parallelism:0}") final int parallelism) {
+        return Executors.newWorkStealingPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -2,11 +2,22 @@ package com.test.crypto.controller;
 
 import com.test.crypto.exception.FileMissingException;
 import com.test.crypto.exception.FileParseException;
+import com.test.crypto.exception.InvalidParameterException;
 import com.test.crypto.exception.RecordMissingInCsvException;
 import com.test.crypto.exception.UnsupportedCurrencyException;
+import com.test.crypto.model.Candle;
+import com.test.crypto.model.CandleInterval;
+import com.test.crypto.model.CorrelationMatrix;
+import com.test.crypto.model.DailyHighestNormalizedData;
+import com.test.crypto.model.ExportFormat;
 import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.PriceTick;
+import com.test.crypto.model.RollingAnalytics;
 import com.test.crypto.model.Statistics;
+import com.test.crypto.model.StatisticsResult;
+import com.test.crypto.ingest.TickIngestor;
 import com.test.crypto.service.CryptoService;
+import com.test.crypto.service.PriceExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,13 +25,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -28,8 +44,15 @@ public class CryptoCurrencyController {
 
     private final CryptoService cryptoService;
 
-    public CryptoCurrencyController(final CryptoService cryptoService) {
+    private final PriceExporter priceExporter;
+
+    private final TickIngestor tickIngestor;
+
+    public CryptoCurrencyController(final CryptoService cryptoService, final PriceExporter priceExporter,
+                                    final TickIngestor tickIngestor) {
         this.cryptoService = cryptoService;
+        this.priceExporter = priceExporter;
+        this.tickIngestor = tickIngestor;
     }
 
     @Operation(summary = "Finds the oldest/newest/min/max values for a requested crypto")
@@ -44,16 +67,82 @@ public class CryptoCurrencyController {
                     content = { @Content(schema = @Schema(oneOf = {
                             UnsupportedCurrencyException.class,
                             FileMissingException.class,
-                            FileParseException.class
+                            FileParseException.class,
+                            RecordMissingInCsvException.class,
+                            InvalidParameterException.class
                     })) }) })
     @GetMapping("/statistics")
     @ResponseStatus(HttpStatus.OK)
     public Statistics fetchStatistics(
             @Parameter(description = "currency against which statistics will be collected")
             @RequestParam(name = "currency")
-            final String currency) {
+            final String currency,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        if (null == from && null == to) {
+            return cryptoService.fetchStatistics(currency);
+        }
+        return cryptoService.fetchStatistics(currency,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to);
+    }
+
+    @Operation(summary = "Finds the oldest/newest/min/max values for several cryptos in one call")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics collected, currencies that failed carry an error message",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = StatisticsResult.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid time window",
+                    content = { @Content(schema = @Schema(implementation = InvalidParameterException.class)) }) })
+    @GetMapping("/statistics/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, StatisticsResult> fetchStatisticsBatch(
+            @Parameter(description = "currencies against which statistics will be collected")
+            @RequestParam(name = "currency")
+            final List<String> currencies,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
 
-        return cryptoService.fetchStatistics(currency);
+        return cryptoService.fetchStatistics(currencies,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to);
+    }
+
+    @Operation(summary = "Finds the oldest/newest/min/max values for the cryptos of the request body in one call")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics collected, currencies that failed carry an error message",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = StatisticsResult.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid time window",
+                    content = { @Content(schema = @Schema(implementation = InvalidParameterException.class)) }) })
+    @PostMapping("/statistics/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, StatisticsResult> postStatisticsBatch(
+            @RequestBody
+            final List<String> currencies,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        return fetchStatisticsBatch(currencies, from, to);
     }
 
     @Operation(summary = "Finds the crypto with the highest normalized range for a specific day")
@@ -75,9 +164,43 @@ public class CryptoCurrencyController {
     public HighestNormalizedData maxNormalizedCrypto(
             @Parameter(description = "specific day")
             @RequestParam(name = "date")
-            final String date) {
+            final String date,
+            @Parameter(description = "ignore the cryptos without a price on that day instead of failing")
+            @RequestParam(name = "skipMissing", required = false, defaultValue = "false")
+            final boolean skipMissing) {
 
-        return cryptoService.findHighestNormalizedCrypto(date);
+        return cryptoService.findHighestNormalizedCrypto(date, skipMissing);
+    }
+
+    @Operation(summary = "Finds the crypto with the highest normalized range for each day of a date span")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Crypto with highest normalized range of each day returned successfully",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = DailyHighestNormalizedData.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "No record found for a day of the span or invalid span",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            RecordMissingInCsvException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @GetMapping(value = "/max-normalized-range/daily")
+    @ResponseStatus(HttpStatus.OK)
+    public List<DailyHighestNormalizedData> maxNormalizedCryptoPerDay(
+            @Parameter(description = "first day, inclusive")
+            @RequestParam(name = "from")
+            final String from,
+            @Parameter(description = "last day, inclusive")
+            @RequestParam(name = "to")
+            final String to,
+            @Parameter(description = "ignore the cryptos without a price on a day instead of failing")
+            @RequestParam(name = "skipMissing", required = false, defaultValue = "false")
+            final boolean skipMissing) {
+
+        return cryptoService.findHighestNormalizedCryptoPerDay(from, to, skipMissing);
     }
 
     @Operation(summary = "Returns a descending sorted list of all the cryptos comparing the normalized range")
@@ -92,13 +215,205 @@ public class CryptoCurrencyController {
                     content = { @Content(schema = @Schema(oneOf = {
                             RecordMissingInCsvException.class,
                             FileMissingException.class,
-                            FileParseException.class
+                            FileParseException.class,
+                            InvalidParameterException.class
                     })) }) })
     @GetMapping("/normalized-list")
     @ResponseStatus(HttpStatus.OK)
-    public List<HighestNormalizedData> normalizedList() {
+    public List<HighestNormalizedData> normalizedList(
+            @Parameter(description = "number of cryptos to skip")
+            @RequestParam(name = "offset", defaultValue = "0")
+            final int offset,
+            @Parameter(description = "maximum number of cryptos to return, all when omitted")
+            @RequestParam(name = "limit", required = false)
+            final Integer limit,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        int pageSize = null == limit ? Integer.MAX_VALUE : limit;
+        if (null == from && null == to) {
+            return cryptoService.sortedNormalizedList(offset, pageSize);
+        }
+        return cryptoService.sortedNormalizedList(null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to, offset, pageSize);
+    }
+
+    @Operation(summary = "Returns the hourly, daily or weekly open/high/low/close candles of a crypto")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Candles returned successfully, in time order",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = Candle.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Currency not supported or no record found in the time window",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            UnsupportedCurrencyException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            RecordMissingInCsvException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @GetMapping("/candles")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Candle> candles(
+            @Parameter(description = "currency whose candles will be returned")
+            @RequestParam(name = "currency")
+            final String currency,
+            @Parameter(description = "HOUR, DAY or WEEK, aligned on UTC with weeks starting on Monday")
+            @RequestParam(name = "interval", defaultValue = "DAY")
+            final CandleInterval interval,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        return cryptoService.candles(currency, interval,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to);
+    }
+
+    @Operation(summary = "Returns the rolling average, volatility, min/max and drawdown of a crypto for each price")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Rolling analytics returned successfully, points in time order",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = RollingAnalytics.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Currency not supported, invalid window, no record found in the time window or more than "
+                            + "10000 prices in it",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            UnsupportedCurrencyException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            RecordMissingInCsvException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @GetMapping("/analytics")
+    @ResponseStatus(HttpStatus.OK)
+    public RollingAnalytics analytics(
+            @Parameter(description = "currency whose analytics will be returned")
+            @RequestParam(name = "currency")
+            final String currency,
+            @Parameter(description = "number of prices of the rolling window, up to 10000")
+            @RequestParam(name = "window", defaultValue = "24")
+            final int window,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        return cryptoService.rollingAnalytics(currency, window,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to);
+    }
+
+    @Operation(summary = "Returns the pairwise correlation of the hourly, daily or weekly returns of cryptos")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Correlation matrix returned successfully, rows and columns in currency order",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = CorrelationMatrix.class)) }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Currency not supported, window too long or no common record found in the time window",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            UnsupportedCurrencyException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            RecordMissingInCsvException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @GetMapping("/correlation")
+    @ResponseStatus(HttpStatus.OK)
+    public CorrelationMatrix correlation(
+            @Parameter(description = "currencies to correlate, all supported ones when left out")
+            @RequestParam(name = "currency", required = false)
+            final List<String> currencies,
+            @Parameter(description = "HOUR, DAY or WEEK, the returns being those of consecutive closes")
+            @RequestParam(name = "interval", defaultValue = "DAY")
+            final CandleInterval interval,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to) {
+
+        return cryptoService.correlation(null == currencies ? List.of() : currencies, interval,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to);
+    }
+
+    @Operation(summary = "Appends a batch of live price ticks, in time order per crypto")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "204",
+                    description = "Ticks appended"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Currency not supported or tick older than the newest price of its crypto",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            UnsupportedCurrencyException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @PostMapping("/ticks")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void ingestTicks(
+            @RequestBody
+            final List<PriceTick> ticks) {
+
+        tickIngestor.ingest(ticks);
+    }
+
+    @Operation(summary = "Streams the price rows of one or several cryptos as NDJSON or server-sent events")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Price rows streamed in time order, currency by currency",
+                    content = {
+                            @Content(mediaType = "application/x-ndjson"),
+                            @Content(mediaType = "text/event-stream") }),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Currency not supported or invalid time window",
+                    content = { @Content(schema = @Schema(oneOf = {
+                            UnsupportedCurrencyException.class,
+                            FileMissingException.class,
+                            FileParseException.class,
+                            InvalidParameterException.class
+                    })) }) })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "currencies whose price rows will be exported")
+            @RequestParam(name = "currency")
+            final List<String> currencies,
+            @Parameter(description = "start of the time window in epoch millis, inclusive")
+            @RequestParam(name = "from", required = false)
+            final Long from,
+            @Parameter(description = "end of the time window in epoch millis, exclusive")
+            @RequestParam(name = "to", required = false)
+            final Long to,
+            @Parameter(description = "NDJSON or SSE")
+            @RequestParam(name = "format", defaultValue = "NDJSON")
+            final ExportFormat format) {
 
-        return cryptoService.sortedNormalizedList();
+        StreamingResponseBody body = priceExporter.export(currencies,
+                null == from ? Long.MIN_VALUE : from,
+                null == to ? Long.MAX_VALUE : to,
+                format);
+        return ResponseEntity.ok().contentType(format.mediaType()).body(body);
     }
 
 }
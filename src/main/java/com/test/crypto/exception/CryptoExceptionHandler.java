@@ -48,4 +48,17 @@ public class CryptoExceptionHandler {
         return ResponseEntity.status(response.status()).body(response);
     }
 
+    @ExceptionHandler(InvalidParameterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public final ResponseEntity handleInvalidParameterException(final InvalidParameterException ex) {
+        ExceptionResponse response = new ExceptionResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        return ResponseEntity.status(response.status()).body(response);
+    }
+
+    @ExceptionHandler(ShardException.class)
+    public final ResponseEntity handleShardException(final ShardException ex) {
+        ExceptionResponse response = new ExceptionResponse(ex.getMessage(), ex.status());
+        return ResponseEntity.status(response.status()).body(response);
+    }
+
 }
@@ -0,0 +1,8 @@
+package com.test.crypto.exception;
+
+public class InvalidParameterException extends RuntimeException {
+
+    public InvalidParameterException(final String message) {
+        super(message);
+    }
+}
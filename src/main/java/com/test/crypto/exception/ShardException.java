@@ -0,0 +1,20 @@
+package com.test.crypto.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Failure of a shard queried by the coordinator, carrying the status to answer the client with
+ */
+public class ShardException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public ShardException(final String message, final HttpStatus status) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus status() {
+        return status;
+    }
+}
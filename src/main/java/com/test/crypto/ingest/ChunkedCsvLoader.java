@@ -0,0 +1,198 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.store.PriceSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Parses a large price file on several cores. The file is split into byte ranges that end on line breaks,
+ * each range is parsed into primitive columns on the executor, and the ranges are appended to the series in
+ * file order before it is sorted by time. A last row that is not terminated yet is left for the file tail.
+ */
+public class ChunkedCsvLoader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final long chunkBytes;
+
+    private final ExecutorService executor;
+
+    public ChunkedCsvLoader(final Path file, final long chunkBytes, final ExecutorService executor) {
+        this.file = file;
+        this.chunkBytes = chunkBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Parses every complete row of the file into the series
+     * @param series
+     * @return offset of the first byte not parsed
+     * @throws IOException
+     */
+    public long load(final PriceSeries series) throws IOException {
+        String fileName = file.getFileName().toString();
+        // positional reads of a channel may run concurrently, the chunks share it
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<CompletableFuture<PriceRows>> chunks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkBytes < size ? lineEnd(channel, start + chunkBytes, size) : -1;
+                if (end < 0) {
+                    end = lastLineEnd(channel, start, size);
+                }
+                if (end == start) {
+                    break;
+                }
+                long from = start;
+                long to = end;
+                chunks.add(CompletableFuture.supplyAsync(() -> parse(channel, fileName, from, to), executor));
+                start = end;
+            }
+
+            for (CompletableFuture<PriceRows> chunk : chunks) {
+                join(chunk).appendTo(series);
+            }
+            series.sortByTime();
+            return start;
+        }
+    }
+
+    private PriceRows parse(final FileChannel channel, final String fileName, final long from, final long to) {
+        PriceRows rows = new PriceRows();
+        // only the first chunk starts with the header, line numbers of the other chunks start at their first byte
+        CsvPriceParser parser = from == 0
+                ? new CsvPriceParser(fileName, rows, true)
+                : new CsvPriceParser(fileName + " from byte " + from, rows, false);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        try {
+            for (long position = from; position < to; ) {
+                byteBuffer.clear();
+                byteBuffer.limit((int) Math.min(BUFFER_SIZE, to - position));
+                int read = channel.read(byteBuffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                parser.feed(buffer, 0, read);
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the offset following the first line break at or after the position
+     * @param channel
+     * @param position
+     * @param size
+     * @return offset, -1 when no line break follows
+     * @throws IOException
+     */
+    private static long lineEnd(final FileChannel channel, final long position, final long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (long offset = position; offset < size; ) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset following the last line break in [start, size)
+     * @param channel
+     * @param start
+     * @param size
+     * @return offset, start when the range holds no line break
+     * @throws IOException
+     */
+    private static long lastLineEnd(final FileChannel channel, final long start, final long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (long end = size; end > start; ) {
+            long from = Math.max(start, end - BUFFER_SIZE);
+            buffer.clear();
+            buffer.limit((int) (end - from));
+            while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) > 0) {
+                // read the whole block
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+            end = from;
+        }
+        return start;
+    }
+
+    private static <T> T join(final CompletableFuture<T> chunk) throws IOException {
+        try {
+            return chunk.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Growable primitive columns of the rows of one chunk
+     */
+    private static final class PriceRows implements PriceRowSink {
+
+        private long[] timestamps = new long[1024];
+
+        private long[] prices = new long[1024];
+
+        private byte[] scales = new byte[1024];
+
+        private int size;
+
+        @Override
+        public void accept(final long timestamp, final long unscaledPrice, final int scale) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+                scales = Arrays.copyOf(scales, size * 2);
+            }
+            timestamps[size] = timestamp;
+            prices[size] = unscaledPrice;
+            scales[size] = (byte) scale;
+            size++;
+        }
+
+        void appendTo(final PriceSeries series) {
+            for (int i = 0; i < size; i++) {
+                series.append(timestamps[i], prices[i], scales[i]);
+            }
+        }
+    }
+}
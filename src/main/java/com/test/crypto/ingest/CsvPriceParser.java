@@ -0,0 +1,199 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming parser of {@code timestamp,symbol,price} files. Bytes are read through one reused buffer and
+ * the timestamp and price are accumulated straight into primitives, so no object is created per row.
+ * The first line is the header and is skipped, unless the parser starts in the middle of a file. Rows can be
+ * split across buffers, so the same parser can be fed incrementally as a file grows.
+ */
+public class CsvPriceParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int TIMESTAMP_FIELD = 0;
+
+    private static final int PRICE_FIELD = 2;
+
+    private final String source;
+
+    private final PriceRowSink sink;
+
+    private byte[] buffer;
+
+    private boolean header;
+
+    private boolean empty = true;
+
+    private boolean fraction;
+
+    private boolean timestampDigits;
+
+    private boolean priceDigits;
+
+    private int field;
+
+    private long timestamp;
+
+    private long price;
+
+    private int scale;
+
+    private long line = 1;
+
+    private long rows;
+
+    public CsvPriceParser(final String source, final PriceRowSink sink) {
+        this(source, sink, true);
+    }
+
+    /**
+     * @param source name of the parsed file, reported in errors
+     * @param sink
+     * @param header whether the first line is a header to skip, false when parsing from the middle of a file
+     */
+    public CsvPriceParser(final String source, final PriceRowSink sink, final boolean header) {
+        this.source = source;
+        this.sink = sink;
+        this.header = header;
+    }
+
+    /**
+     * Parses the whole stream, including a last row without a trailing line break
+     * @param in
+     * @return number of rows parsed
+     * @throws IOException
+     */
+    public long parse(final InputStream in) throws IOException {
+        if (null == buffer) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        finish();
+        return rows;
+    }
+
+    /**
+     * Parses the given bytes. A row that is not terminated yet is kept until more bytes are fed.
+     * @param bytes
+     * @param offset
+     * @param length
+     */
+    public void feed(final byte[] bytes, final int offset, final int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '\n') {
+                endLine();
+            } else if (!header && b != '\r' && b != ' ') {
+                empty = false;
+                if (b == ',') {
+                    field++;
+                } else if (field == TIMESTAMP_FIELD) {
+                    timestamp = appendDigit(timestamp, b);
+                    timestampDigits = true;
+                } else if (field == PRICE_FIELD) {
+                    if (b == '.' && !fraction) {
+                        fraction = true;
+                    } else {
+                        price = appendDigit(price, b);
+                        priceDigits = true;
+                        if (fraction) {
+                            scale++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the pending row of a stream that does not end with a line break
+     */
+    public void finish() {
+        if (!empty) {
+            endLine();
+        }
+    }
+
+    /**
+     * Drops the row whose parsing failed, so that parsing resumes with the next line fed.
+     * A row that failed at its line break was already dropped.
+     */
+    public void skipRow() {
+        if (!empty) {
+            line++;
+            reset();
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Ends the current line. The parser is reset before the row is checked and emitted, so that a failure
+     * leaves it ready for the next line.
+     */
+    private void endLine() {
+        boolean row = !header && !empty;
+        boolean complete = field == PRICE_FIELD && timestampDigits && priceDigits;
+        long rowTimestamp = timestamp;
+        long rowPrice = price;
+        int rowScale = scale;
+        long rowLine = line;
+        header = false;
+        line++;
+        reset();
+        if (row) {
+            if (!complete) {
+                throw malformed(rowLine);
+            }
+            sink.accept(rowTimestamp, rowPrice, rowScale);
+            rows++;
+        }
+    }
+
+    private void reset() {
+        empty = true;
+        fraction = false;
+        timestampDigits = false;
+        priceDigits = false;
+        field = 0;
+        timestamp = 0;
+        price = 0;
+        scale = 0;
+    }
+
+    /**
+     * Appends a decimal digit to a field, failing when the field no longer fits in a long
+     * @param value
+     * @param b
+     * @return value * 10 + digit
+     */
+    private long appendDigit(final long value, final byte b) {
+        int digit = digit(b);
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+            throw malformed(line);
+        }
+        return value * 10 + digit;
+    }
+
+    private int digit(final byte b) {
+        if (b < '0' || b > '9') {
+            throw malformed(line);
+        }
+        return b - '0';
+    }
+
+    private FileParseException malformed(final long rowLine) {
+        return new FileParseException("Error occurred while reading csv file " + source + " at line " + rowLine);
+    }
+}
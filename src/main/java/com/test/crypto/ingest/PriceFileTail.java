@@ -0,0 +1,139 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.store.PriceSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tails an append-only price file into a price series. Each poll parses only the bytes written since the
+ * previous one; a last row that is not terminated by a line break yet is left in the file until it is completed.
+ * A malformed row is skipped up to its line break, so that the rows following it are still parsed.
+ */
+public class PriceFileTail {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final PriceSeries series;
+
+    private final CsvPriceParser parser;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private long offset;
+
+    // a row failed before its line break, the bytes up to the next one are ignored
+    private boolean skipping;
+
+    public PriceFileTail(final Path file, final PriceSeries series) {
+        this.file = file;
+        this.series = series;
+        this.parser = new CsvPriceParser(file.getFileName().toString(), series::append);
+    }
+
+    /**
+     * Tails a file whose rows up to the offset were already parsed into the series
+     * @param file
+     * @param series
+     * @param offset first byte not parsed yet, following a line break
+     */
+    public PriceFileTail(final Path file, final PriceSeries series, final long offset) {
+        this.file = file;
+        this.series = series;
+        this.parser = new CsvPriceParser(file.getFileName().toString() + " from byte " + offset, series::append,
+                offset == 0);
+        this.offset = offset;
+    }
+
+    /**
+     * Parses the rows appended to the file since the last poll into the series. The rows following a malformed
+     * one are parsed and published before the first error is thrown.
+     * @return number of new rows
+     * @throws IOException
+     */
+    public long poll() throws IOException {
+        // the tick ingestion may append to the same series, writers take turns on it
+        series.writeLock().lock();
+        try {
+            long rowsBefore = parser.rows();
+            RuntimeException error = null;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < offset) {
+                    throw new IOException("File " + file.getFileName() + " shrank from " + offset + " to " + size + " bytes");
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                while (offset < size) {
+                    byteBuffer.clear();
+                    int read = channel.read(byteBuffer, offset);
+                    if (read <= 0) {
+                        break;
+                    }
+                    int fed = 0;
+                    while (fed < read) {
+                        int end = lineEnd(fed, read);
+                        if (buffer[end - 1] != '\n' && (fed > 0 || read < buffer.length)) {
+                            // an unterminated row is read again from its start, once complete if still being written
+                            break;
+                        }
+                        try {
+                            feed(fed, end);
+                        } catch (FileParseException | ArithmeticException e) {
+                            parser.skipRow();
+                            skipping = buffer[end - 1] != '\n';
+                            error = null == error ? e : error;
+                        }
+                        offset += end - fed;
+                        fed = end;
+                    }
+                    if (fed < read && read < buffer.length) {
+                        break;
+                    }
+                }
+            } finally {
+                // in order rows are published as they are parsed, only older ones wait for the series to be reordered
+                if (series.pendingRows() > 0) {
+                    series.sortByTime();
+                }
+            }
+            if (null != error) {
+                throw error;
+            }
+            return parser.rows() - rowsBefore;
+        } finally {
+            series.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Feeds a line, or the part of a line longer than the buffer, unless it follows a malformed row on its line
+     * @param from
+     * @param to
+     */
+    private void feed(final int from, final int to) {
+        if (skipping) {
+            skipping = buffer[to - 1] != '\n';
+            return;
+        }
+        parser.feed(buffer, from, to - from);
+    }
+
+    private int lineEnd(final int from, final int read) {
+        for (int i = from; i < read; i++) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return read;
+    }
+
+    public long offset() {
+        return offset;
+    }
+}
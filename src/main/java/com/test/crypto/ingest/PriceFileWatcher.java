@@ -0,0 +1,112 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.service.CsvProcessor;
+import com.test.crypto.store.PriceStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the filesystem price directory, if one is configured, and merges rows appended to or files
+ * dropped into it into the in-memory series without a reload
+ */
+@Component
+@Slf4j
+public class PriceFileWatcher {
+
+    @Value("${currency.file.filesystem-directory:}")
+    private String filesystemDirectory;
+
+    @Value("${currency.file.suffix}")
+    private String fileSuffix;
+
+    private final PriceStore priceStore;
+
+    private final CsvProcessor csvProcessor;
+
+    private WatchService watchService;
+
+    public PriceFileWatcher(final PriceStore priceStore, final CsvProcessor csvProcessor) {
+        this.priceStore = priceStore;
+        this.csvProcessor = csvProcessor;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (filesystemDirectory.isEmpty()) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        Path.of(filesystemDirectory).register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread thread = new Thread(this::watch, "price-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching price directory {}", filesystemDirectory);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (null != watchService) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        priceStore.supportedCurrencies().forEach(this::ingest);
+                    } else {
+                        onFileChanged(((Path) event.context()).getFileName().toString());
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Price directory {} is no longer accessible", filesystemDirectory);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            log.debug("Stopped watching price directory {}", filesystemDirectory);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onFileChanged(final String fileName) {
+        if (!fileName.endsWith(fileSuffix)) {
+            return;
+        }
+        String currency = fileName.substring(0, fileName.length() - fileSuffix.length());
+        if (priceStore.registry().contains(currency)) {
+            ingest(currency);
+        } else {
+            log.debug("Ignoring file {} of unsupported currency", fileName);
+        }
+    }
+
+    private void ingest(final String currency) {
+        try {
+            // a file dropped for a currency that was not loaded yet is loaded by the store
+            if (!csvProcessor.tail(currency)) {
+                priceStore.series(currency);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Unable to ingest prices of currency {}: {}", currency, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.test.crypto.ingest;
+
+/**
+ * Receives the rows of a price file as primitives, without a per-row object
+ */
+@FunctionalInterface
+public interface PriceRowSink {
+
+    /**
+     * Accepts one parsed row
+     * @param timestamp epoch millis
+     * @param unscaledPrice price without its decimal point
+     * @param scale number of decimals of the price
+     */
+    void accept(long timestamp, long unscaledPrice, int scale);
+}
@@ -0,0 +1,114 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.store.PriceSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of a price series. The layout is a 16 byte header (magic, version, scale, row count)
+ * followed by the fixed width timestamp column and the unscaled price column, all big endian.
+ * Snapshots are read through a memory mapping, so loading is served from the page cache without parsing.
+ */
+public final class PriceSnapshot {
+
+    private static final int MAGIC = 0x43505331;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // rows of a column mapped at once, 128MB
+    private static final int WINDOW_ROWS = 1 << 24;
+
+    private PriceSnapshot() {
+    }
+
+    /**
+     * Writes the series to the given file, replacing it if it exists
+     * @param series
+     * @param file
+     * @throws IOException
+     */
+    public static void write(final PriceSeries series, final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            PriceSeries.View view = series.view();
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(view.scale()).putInt(view.size());
+            for (int i = 0; i < view.size(); i++) {
+                flushIfFull(channel, buffer);
+                buffer.putLong(view.timestamp(i));
+            }
+            for (int i = 0; i < view.size(); i++) {
+                flushIfFull(channel, buffer);
+                buffer.putLong(view.unscaledPrice(i));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Maps the snapshot file and hands its rows to the sink. The columns are mapped in windows of rows, as a
+     * single mapping cannot exceed 2GB.
+     * @param file
+     * @param sink
+     * @return number of rows read
+     * @throws IOException
+     */
+    public static int read(final Path file, final PriceRowSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new FileParseException("Invalid price snapshot " + file.getFileName());
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new FileParseException("Invalid price snapshot " + file.getFileName());
+            }
+            int scale = header.getInt(8);
+            int count = header.getInt(12);
+            long columnBytes = (long) count * Long.BYTES;
+            if (count < 0 || size != HEADER_BYTES + 2 * columnBytes) {
+                throw new FileParseException("Truncated price snapshot " + file.getFileName());
+            }
+            int from = 0;
+            while (from < count) {
+                int rows = Math.min(WINDOW_ROWS, count - from);
+                LongBuffer timestamps = map(channel, HEADER_BYTES + (long) from * Long.BYTES, rows);
+                LongBuffer prices = map(channel, HEADER_BYTES + columnBytes + (long) from * Long.BYTES, rows);
+                for (int i = 0; i < rows; i++) {
+                    sink.accept(timestamps.get(i), prices.get(i), scale);
+                }
+                from += rows;
+            }
+            return count;
+        }
+    }
+
+    private static LongBuffer map(final FileChannel channel, final long position, final int rows) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, (long) rows * Long.BYTES).asLongBuffer();
+    }
+
+    private static void flushIfFull(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
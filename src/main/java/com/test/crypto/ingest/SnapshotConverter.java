@@ -0,0 +1,48 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.store.PriceSeries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts every {@code .csv} price file of a directory into a {@code .bin} price snapshot with the same base name.
+ * Usage: {@code SnapshotConverter <csv directory> <snapshot directory>}
+ */
+public final class SnapshotConverter {
+
+    private static final String CSV_EXTENSION = ".csv";
+
+    private static final String SNAPSHOT_EXTENSION = ".bin";
+
+    private SnapshotConverter() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotConverter <csv directory> <snapshot directory>");
+            System.exit(1);
+        }
+        Path target = Files.createDirectories(Path.of(args[1]));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(args[0]), "*" + CSV_EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String baseName = fileName.substring(0, fileName.length() - CSV_EXTENSION.length());
+
+                PriceSeries series = new PriceSeries(baseName);
+                try (InputStream in = Files.newInputStream(file)) {
+                    new CsvPriceParser(fileName, series::append).parse(in);
+                }
+                series.sortByTime();
+
+                Path snapshot = target.resolve(baseName + SNAPSHOT_EXTENSION);
+                PriceSnapshot.write(series, snapshot);
+                System.out.println("Converted " + file + " (" + series.size() + " rows) to " + snapshot);
+            }
+        }
+    }
+}
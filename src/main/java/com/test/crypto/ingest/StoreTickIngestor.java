@@ -0,0 +1,106 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.model.PriceTick;
+import com.test.crypto.store.PriceSeries;
+import com.test.crypto.store.PriceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends ticks to the series of the price store. Ticks of a currency must arrive in time order, as the series
+ * only publishes appended rows and never reorders rows that readers may be looking at. Writers of a series
+ * take turns on its write lock; readers never take it.
+ * <p>
+ * A batch is applied as a whole or not at all: the write locks of all its series are taken in registry order, so
+ * that concurrent batches cannot deadlock, and the order and prices of every series are validated before any tick
+ * is appended.
+ */
+@Component
+@Slf4j
+public class StoreTickIngestor implements TickIngestor {
+
+    private final PriceStore priceStore;
+
+    private final CryptoMetrics cryptoMetrics;
+
+    public StoreTickIngestor(final PriceStore priceStore, final CryptoMetrics cryptoMetrics) {
+        this.priceStore = priceStore;
+        this.cryptoMetrics = cryptoMetrics;
+    }
+
+    @Override
+    public void ingest(final PriceTick tick) {
+        ingest(List.of(tick));
+    }
+
+    @Override
+    public int ingest(final List<PriceTick> ticks) {
+
+        Map<PriceSeries, List<PriceTick>> ticksBySeries = new LinkedHashMap<>();
+        for (PriceTick tick : ticks) {
+            if (null == tick.price() || tick.price().signum() <= 0) {
+                throw new InvalidParameterException("Price of a tick must be positive");
+            }
+            ticksBySeries.computeIfAbsent(priceStore.series(tick.currency()), series -> new ArrayList<>()).add(tick);
+        }
+
+        List<PriceSeries> lockOrder = new ArrayList<>(ticksBySeries.keySet());
+        lockOrder.sort(Comparator.comparingInt(series -> priceStore.registry().id(series.currency())));
+        append(ticksBySeries, lockOrder);
+
+        ticksBySeries.forEach((series, seriesTicks) -> {
+            cryptoMetrics.recordTicks(series.currency(), seriesTicks.size());
+            log.debug("Ingested {} ticks of currency {}", seriesTicks.size(), series.currency());
+        });
+        return ticks.size();
+    }
+
+    /**
+     * Takes the write lock of every series, then validates and appends the whole batch
+     * @param ticksBySeries
+     * @param lockOrder series in the order their locks are taken
+     */
+    private static void append(final Map<PriceSeries, List<PriceTick>> ticksBySeries, final List<PriceSeries> lockOrder) {
+        int locked = 0;
+        try {
+            for (PriceSeries series : lockOrder) {
+                series.writeLock().lock();
+                locked++;
+            }
+            ticksBySeries.forEach(StoreTickIngestor::validate);
+            ticksBySeries.forEach((series, seriesTicks) -> {
+                for (PriceTick tick : seriesTicks) {
+                    series.append(tick.timestamp(), tick.price());
+                }
+            });
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                lockOrder.get(i).writeLock().unlock();
+            }
+        }
+    }
+
+    private static void validate(final PriceSeries series, final List<PriceTick> ticks) {
+        PriceSeries.View view = series.view();
+        long newest = view.size() == 0 ? Long.MIN_VALUE : view.timestamp(view.size() - 1);
+        for (PriceTick tick : ticks) {
+            if (tick.timestamp() < newest) {
+                throw new InvalidParameterException("Tick of currency " + series.currency() + " at " + tick.timestamp()
+                        + " is older than its newest price at " + newest);
+            }
+            newest = tick.timestamp();
+        }
+        if (!series.fits(ticks.stream().map(PriceTick::price).toList())) {
+            throw new InvalidParameterException("Prices of the ticks of currency " + series.currency()
+                    + " cannot be stored at the scale of its series");
+        }
+    }
+}
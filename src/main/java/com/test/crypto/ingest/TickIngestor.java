@@ -0,0 +1,26 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.model.PriceTick;
+
+import java.util.List;
+
+/**
+ * Appends live price ticks to the series of their currency while queries keep reading them
+ */
+public interface TickIngestor {
+
+    /**
+     * Appends a tick to the series of its currency
+     * @param tick
+     */
+    void ingest(PriceTick tick);
+
+    /**
+     * Appends a batch of ticks. The batch is validated as a whole before any tick is appended, so it is
+     * either appended entirely or rejected. A coordinator forwards the part of each shard, which is then
+     * appended entirely or rejected.
+     * @param ticks
+     * @return number of appended ticks
+     */
+    int ingest(List<PriceTick> ticks);
+}
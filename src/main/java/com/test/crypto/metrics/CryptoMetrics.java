@@ -0,0 +1,150 @@
+package com.test.crypto.metrics;
+
+import com.test.crypto.store.PriceSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the ingestion and query paths. Timers publish percentile histograms so that latency
+ * percentiles can be aggregated by the monitoring system.
+ */
+@Component
+public class CryptoMetrics {
+
+    public static final String ALL_CURRENCIES = "all";
+
+    private static final String CURRENCY = "currency";
+
+    private final MeterRegistry meterRegistry;
+
+    public CryptoMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Times a CryptoService query
+     * @param query name of the query
+     * @param currency currency of the query, or ALL_CURRENCIES
+     * @param supplier
+     * @return the query result
+     */
+    public <T> T timeQuery(final String query, final String currency, final Supplier<T> supplier) {
+        return Timer.builder("crypto.query")
+                .description("Latency of the crypto service queries")
+                .tag("query", query)
+                .tag(CURRENCY, currency)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(supplier);
+    }
+
+    /**
+     * Counts a query that waited for the result of an identical query in flight instead of computing it
+     * @param query name of the query
+     */
+    public void recordCoalesced(final String query) {
+        Counter.builder("crypto.query.coalesced")
+                .description("Queries served by an identical concurrent query")
+                .tag("query", query)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Times the load of a price series and counts its rows
+     * @param currency
+     * @param source csv, file or snapshot
+     * @param loader
+     * @return the loaded series
+     */
+    public PriceSeries timeLoad(final String currency, final String source, final Supplier<PriceSeries> loader) {
+        PriceSeries series = Timer.builder("crypto.ingest.load")
+                .description("Time to parse and index the price file of a currency")
+                .tag(CURRENCY, currency)
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(loader);
+        rowsCounter(currency).increment(series.size());
+        return series;
+    }
+
+    /**
+     * Records a poll of an appended price file
+     * @param currency
+     * @param nanos
+     * @param rows new rows
+     */
+    public void recordTail(final String currency, final long nanos, final long rows) {
+        Timer.builder("crypto.ingest.tail")
+                .description("Time to parse the rows appended to a price file")
+                .tag(CURRENCY, currency)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        rowsCounter(currency).increment(rows);
+    }
+
+    /**
+     * Times the sorting and re-indexing of a series loaded out of time order
+     * @param currency
+     * @param indexing
+     */
+    public void timeIndex(final String currency, final Runnable indexing) {
+        Timer.builder("crypto.ingest.index")
+                .description("Time to sort and index a price series")
+                .tag(CURRENCY, currency)
+                .register(meterRegistry)
+                .record(indexing);
+    }
+
+    /**
+     * Registers the size gauges of a series
+     * @param series
+     * @return the registered meters, to be removed when the series is dropped
+     */
+    public List<Meter> registerSeries(final PriceSeries series) {
+        return List.of(
+                Gauge.builder("crypto.store.rows", series, PriceSeries::size)
+                        .description("Rows held for a currency")
+                        .tag(CURRENCY, series.currency())
+                        .register(meterRegistry),
+                Gauge.builder("crypto.store.memory", series, PriceSeries::memoryBytes)
+                        .description("Estimated heap held by the prices and indexes of a currency")
+                        .tag(CURRENCY, series.currency())
+                        .baseUnit("bytes")
+                        .register(meterRegistry));
+    }
+
+    public void remove(final List<Meter> meters) {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    /**
+     * Counts the ticks appended to a series through the ingestion api
+     * @param currency
+     * @param ticks
+     */
+    public void recordTicks(final String currency, final long ticks) {
+        Counter.builder("crypto.ingest.ticks")
+                .description("Live price ticks appended to a series")
+                .tag(CURRENCY, currency)
+                .register(meterRegistry)
+                .increment(ticks);
+        rowsCounter(currency).increment(ticks);
+    }
+
+    private Counter rowsCounter(final String currency) {
+        return Counter.builder("crypto.ingest.rows")
+                .description("Rows parsed from price files")
+                .tag(CURRENCY, currency)
+                .register(meterRegistry);
+    }
+}
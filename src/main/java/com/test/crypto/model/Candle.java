@@ -0,0 +1,6 @@
+package com.test.crypto.model;
+
+import java.math.BigDecimal;
+
+public record Candle(long timestamp, BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close) {
+}
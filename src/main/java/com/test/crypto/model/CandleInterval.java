@@ -0,0 +1,38 @@
+package com.test.crypto.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candle intervals, aligned on UTC. Weeks start on Monday.
+ */
+public enum CandleInterval {
+
+    HOUR(TimeUnit.HOURS.toMillis(1), 0),
+
+    DAY(TimeUnit.DAYS.toMillis(1), 0),
+
+    // the epoch is a Thursday, so weeks are shifted by the three days back to Monday
+    WEEK(TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(3));
+
+    private final long millis;
+
+    private final long offset;
+
+    CandleInterval(final long millis, final long offset) {
+        this.millis = millis;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the start of the interval holding the timestamp
+     * @param timestamp epoch millis
+     * @return epoch millis
+     */
+    public long start(final long timestamp) {
+        return Math.floorDiv(timestamp + offset, millis) * millis - offset;
+    }
+
+    public long millis() {
+        return millis;
+    }
+}
@@ -0,0 +1,8 @@
+package com.test.crypto.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CorrelationMatrix(List<String> currencies, CandleInterval interval, int observations,
+                                List<List<BigDecimal>> correlations) {
+}
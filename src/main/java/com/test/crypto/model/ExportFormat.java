@@ -0,0 +1,29 @@
+package com.test.crypto.model;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Wire formats of a price series export
+ */
+public enum ExportFormat {
+
+    /**
+     * One json object per line
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON),
+
+    /**
+     * One server-sent event per row, its data being the json object
+     */
+    SSE(MediaType.TEXT_EVENT_STREAM);
+
+    private final MediaType mediaType;
+
+    ExportFormat(final MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+}
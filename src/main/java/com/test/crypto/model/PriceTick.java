@@ -0,0 +1,6 @@
+package com.test.crypto.model;
+
+import java.math.BigDecimal;
+
+public record PriceTick(String currency, long timestamp, BigDecimal price) {
+}
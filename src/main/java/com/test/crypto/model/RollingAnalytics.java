@@ -0,0 +1,7 @@
+package com.test.crypto.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record RollingAnalytics(String currency, int window, BigDecimal maxDrawdown, List<RollingPoint> points) {
+}
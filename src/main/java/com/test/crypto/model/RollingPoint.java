@@ -0,0 +1,7 @@
+package com.test.crypto.model;
+
+import java.math.BigDecimal;
+
+public record RollingPoint(long timestamp, BigDecimal price, BigDecimal sma, BigDecimal ema, BigDecimal volatility,
+                           BigDecimal windowMin, BigDecimal windowMax, BigDecimal drawdown) {
+}
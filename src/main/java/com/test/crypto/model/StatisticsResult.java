@@ -0,0 +1,15 @@
+package com.test.crypto.model;
+
+/**
+ * Outcome of one currency of a batch statistics request, either the statistics or the error message
+ */
+public record StatisticsResult(Statistics statistics, String error) {
+
+    public static StatisticsResult of(final Statistics statistics) {
+        return new StatisticsResult(statistics, null);
+    }
+
+    public static StatisticsResult failed(final String error) {
+        return new StatisticsResult(null, error);
+    }
+}
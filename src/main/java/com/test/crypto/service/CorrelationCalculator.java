@@ -0,0 +1,66 @@
+package com.test.crypto.service;
+
+import com.test.crypto.analytics.Correlation;
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.exception.RecordMissingInCsvException;
+import com.test.crypto.model.CandleInterval;
+import com.test.crypto.model.CorrelationMatrix;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes correlation matrices from the closes of the currencies, wherever they were read from. The rows of
+ * the matrix are computed concurrently, in batches of about the same number of dot products.
+ */
+@Component
+public class CorrelationCalculator {
+
+    // grid points of a correlation, about eleven years of hours
+    private static final int MAX_GRID_POINTS = 100_000;
+
+    private final ParallelEvaluator parallelEvaluator;
+
+    public CorrelationCalculator(final ParallelEvaluator parallelEvaluator) {
+        this.parallelEvaluator = parallelEvaluator;
+    }
+
+    /**
+     * Correlates the returns of the currencies on the grid of intervals they share
+     * @param currencies distinct currencies
+     * @param interval
+     * @param starts per currency, the ascending starts of the intervals holding a price
+     * @param closes per currency, the close of each of those intervals
+     * @param from epoch millis of the time window, inclusive, for error messages
+     * @param to epoch millis of the time window, exclusive, for error messages
+     * @return CorrelationMatrix
+     */
+    public CorrelationMatrix correlate(final List<String> currencies, final CandleInterval interval,
+                                       final long[][] starts, final double[][] closes, final long from, final long to) {
+        if (Correlation.gridPoints(starts, interval.millis()) > MAX_GRID_POINTS) {
+            throw new InvalidParameterException("Correlation must not span more than " + MAX_GRID_POINTS
+                    + " intervals, narrow the time window or use a longer interval");
+        }
+        double[][] returns = Correlation.standardizedReturns(starts, closes, interval.millis());
+        if (null == returns) {
+            throw new RecordMissingInCsvException("No common record found in csv files of currencies "
+                    + currencies + " between " + from + " and " + to);
+        }
+
+        // the evaluator takes currencies as its keys
+        Map<String, Integer> rowOf = new HashMap<>();
+        for (int i = 0; i < currencies.size(); i++) {
+            rowOf.put(currencies.get(i), i);
+        }
+        List<Integer> order = Correlation.balancedOrder(currencies.size());
+        List<double[]> rows = parallelEvaluator.map(order.stream().map(currencies::get).toList(),
+                curr -> Correlation.lowerRow(returns, rowOf.get(curr)));
+        double[][] lowerRows = new double[currencies.size()][];
+        for (int i = 0; i < order.size(); i++) {
+            lowerRows[order.get(i)] = rows.get(i);
+        }
+        return new CorrelationMatrix(currencies, interval, returns[0].length, Correlation.matrix(lowerRows));
+    }
+}
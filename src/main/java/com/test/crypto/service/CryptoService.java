@@ -1,9 +1,16 @@
 package com.test.crypto.service;
 
+import com.test.crypto.model.Candle;
+import com.test.crypto.model.CandleInterval;
+import com.test.crypto.model.CorrelationMatrix;
+import com.test.crypto.model.DailyHighestNormalizedData;
 import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.RollingAnalytics;
 import com.test.crypto.model.Statistics;
+import com.test.crypto.model.StatisticsResult;
 
 import java.util.List;
+import java.util.Map;
 
 public interface CryptoService {
 
@@ -14,6 +21,25 @@ public interface CryptoService {
      */
     Statistics fetchStatistics(String currency);
 
+    /**
+     * Returns the oldest/newest/min/max values for a requested crypto within a time window
+     * @param currency
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return Statistics
+     */
+    Statistics fetchStatistics(String currency, long from, long to);
+
+    /**
+     * Returns the oldest/newest/min/max values for each requested crypto within a time window. A currency
+     * that cannot be served is reported in its own result instead of failing the whole batch.
+     * @param currencies
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return StatisticsResult by currency, in request order
+     */
+    Map<String, StatisticsResult> fetchStatistics(List<String> currencies, long from, long to);
+
     /**
      * Returns the crypto with the highest normalized range for a specific day
      * @param date
@@ -21,9 +47,80 @@ public interface CryptoService {
      */
     HighestNormalizedData findHighestNormalizedCrypto(String date);
 
+    /**
+     * Returns the crypto with the highest normalized range for a specific day
+     * @param date
+     * @param skipMissing ignore the cryptos without a price on that day instead of failing
+     * @return HighestNormalizedData
+     */
+    HighestNormalizedData findHighestNormalizedCrypto(String date, boolean skipMissing);
+
+    /**
+     * Returns the crypto with the highest normalized range for each day of a date span
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @param skipMissing ignore the cryptos without a price on a day instead of failing, days without
+     *                    any price are left out
+     * @return list of DailyHighestNormalizedData, in date order
+     */
+    List<DailyHighestNormalizedData> findHighestNormalizedCryptoPerDay(String from, String to, boolean skipMissing);
+
     /**
      * Return a descending sorted list of all the cryptos, comparing the normalized range
      * @return list of HighestNormalizedData
      */
     List<HighestNormalizedData> sortedNormalizedList();
+
+    /**
+     * Return a page of the descending sorted list of all the cryptos, comparing the normalized range
+     * @param offset number of cryptos to skip
+     * @param limit maximum number of cryptos to return
+     * @return list of HighestNormalizedData
+     */
+    List<HighestNormalizedData> sortedNormalizedList(int offset, int limit);
+
+    /**
+     * Return a page of the descending sorted list of all the cryptos, comparing the normalized range
+     * within a time window
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @param offset number of cryptos to skip
+     * @param limit maximum number of cryptos to return
+     * @return list of HighestNormalizedData
+     */
+    List<HighestNormalizedData> sortedNormalizedList(long from, long to, int offset, int limit);
+
+    /**
+     * Returns the open/high/low/close candles of a crypto for each interval holding a price within a time window
+     * @param currency
+     * @param interval
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return list of Candle, in time order
+     */
+    List<Candle> candles(String currency, CandleInterval interval, long from, long to);
+
+    /**
+     * Returns the rolling analytics of a crypto for each price within a time window. Every price is summarized
+     * over the window of the given number of prices ending with it, which may start before the time window.
+     * A time window holding more than 10000 prices is rejected, longer spans are requested window by window.
+     * @param currency
+     * @param window number of prices of the rolling window
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return RollingAnalytics
+     */
+    RollingAnalytics rollingAnalytics(String currency, int window, long from, long to);
+
+    /**
+     * Returns the pairwise correlation of the returns of cryptos within a time window. The closes of the interval
+     * are aligned on the grid of intervals shared by all cryptos, carrying a close forward over an interval
+     * without prices.
+     * @param currencies all supported cryptos when empty
+     * @param interval
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return CorrelationMatrix, rows and columns in currency order
+     */
+    CorrelationMatrix correlation(List<String> currencies, CandleInterval interval, long from, long to);
 }
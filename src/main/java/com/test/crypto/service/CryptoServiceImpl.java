@@ -1,34 +1,514 @@
 package com.test.crypto.service;
 
+import com.test.crypto.analytics.RollingWindow;
+import com.test.crypto.exception.FileMissingException;
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.exception.RecordMissingInCsvException;
+import com.test.crypto.exception.UnsupportedCurrencyException;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.model.Candle;
+import com.test.crypto.model.CandleInterval;
+import com.test.crypto.model.CorrelationMatrix;
+import com.test.crypto.model.DailyHighestNormalizedData;
 import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.RollingAnalytics;
+import com.test.crypto.model.RollingPoint;
 import com.test.crypto.model.Statistics;
+import com.test.crypto.model.StatisticsResult;
+import com.test.crypto.store.NormalizedRanking;
+import com.test.crypto.store.PriceSeries;
+import com.test.crypto.store.DayLeader;
+import com.test.crypto.store.PriceStore;
+import com.test.crypto.store.RollupBucket;
+import com.test.crypto.util.DateUtil;
+import com.test.crypto.util.FixedPoint;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class CryptoServiceImpl implements CryptoService {
 
-    private final CsvProcessor csvProcessor;
+    // longest date span of the per-day leaderboard query, about ten years
+    private static final int MAX_DAYS = 3660;
+
+    private static final int MAX_ROLLING_WINDOW = 10_000;
+
+    // most points of one analytics response, which is built and cached whole
+    private static final int MAX_ROLLING_POINTS = 10_000;
+
+    // decimals of averages and deviations beyond those of the prices
+    private static final int ROLLING_EXTRA_DECIMALS = 2;
+
+    private final PriceStore priceStore;
+
+    private final ParallelEvaluator parallelEvaluator;
+
+    private final QueryCache queryCache;
 
-    public CryptoServiceImpl(final CsvProcessor csvProcessor) {
-        this.csvProcessor = csvProcessor;
+    private final CryptoMetrics cryptoMetrics;
+
+    private final CorrelationCalculator correlationCalculator;
+
+    private final SingleFlight singleFlight;
+
+    public CryptoServiceImpl(final PriceStore priceStore, final ParallelEvaluator parallelEvaluator,
+                             final QueryCache queryCache, final CryptoMetrics cryptoMetrics,
+                             final CorrelationCalculator correlationCalculator, final SingleFlight singleFlight) {
+        this.priceStore = priceStore;
+        this.parallelEvaluator = parallelEvaluator;
+        this.queryCache = queryCache;
+        this.cryptoMetrics = cryptoMetrics;
+        this.correlationCalculator = correlationCalculator;
+        this.singleFlight = singleFlight;
     }
 
     @Override
     public Statistics fetchStatistics(final String currency) {
-        return csvProcessor.gatherStatistics(currency);
+        return query("statistics", currencyTag(currency), currency, () -> statistics(currency));
+    }
+
+    @Override
+    public Statistics fetchStatistics(final String currency, final long from, final long to) {
+        return query("statistics-window", currencyTag(currency), List.of(currency, from, to),
+                () -> statistics(currency, from, to));
+    }
+
+    @Override
+    public Map<String, StatisticsResult> fetchStatistics(final List<String> currencies, final long from, final long to) {
+        return query("statistics-batch", CryptoMetrics.ALL_CURRENCIES, List.of(currencies, from, to),
+                () -> statistics(currencies, from, to));
     }
 
     @Override
     public HighestNormalizedData findHighestNormalizedCrypto(final String date) {
-        return csvProcessor.findHighestNormalizedCrypto(date);
+        return findHighestNormalizedCrypto(date, false);
+    }
+
+    @Override
+    public HighestNormalizedData findHighestNormalizedCrypto(final String date, final boolean skipMissing) {
+        return query("max-normalized-range", CryptoMetrics.ALL_CURRENCIES, List.of(date, skipMissing),
+                () -> highestNormalized(date, skipMissing));
+    }
+
+    @Override
+    public List<DailyHighestNormalizedData> findHighestNormalizedCryptoPerDay(final String from, final String to,
+                                                                            final boolean skipMissing) {
+        return query("max-normalized-range-daily", CryptoMetrics.ALL_CURRENCIES, List.of(from, to, skipMissing),
+                () -> highestNormalizedPerDay(from, to, skipMissing));
     }
 
     @Override
     public List<HighestNormalizedData> sortedNormalizedList() {
-        return csvProcessor.sortedNormalizedList();
+        return sortedNormalizedList(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<HighestNormalizedData> sortedNormalizedList(final int offset, final int limit) {
+        return query("normalized-list", CryptoMetrics.ALL_CURRENCIES, List.of(offset, limit),
+                () -> normalizedList(offset, limit));
+    }
+
+    @Override
+    public List<HighestNormalizedData> sortedNormalizedList(final long from, final long to, final int offset, final int limit) {
+        return query("normalized-list-window", CryptoMetrics.ALL_CURRENCIES, List.of(from, to, offset, limit),
+                () -> normalizedList(from, to, offset, limit));
+    }
+
+    @Override
+    public List<Candle> candles(final String currency, final CandleInterval interval, final long from, final long to) {
+        return query("candles", currencyTag(currency), List.of(currency, interval, from, to),
+                () -> candleList(currency, interval, from, to));
+    }
+
+    @Override
+    public RollingAnalytics rollingAnalytics(final String currency, final int window, final long from, final long to) {
+        return query("analytics", currencyTag(currency), List.of(currency, window, from, to),
+                () -> analytics(currency, window, from, to));
+    }
+
+    @Override
+    public CorrelationMatrix correlation(final List<String> currencies, final CandleInterval interval,
+                                         final long from, final long to) {
+        return query("correlation", CryptoMetrics.ALL_CURRENCIES, List.of(currencies, interval, from, to),
+                () -> correlationMatrix(currencies, interval, from, to));
+    }
+
+    /**
+     * Times a query, coalescing it with an identical query in flight. Waiting for the query in flight is part of
+     * the latency of the query.
+     * @param query name of the query
+     * @param currencyTag
+     * @param key parameters of the query
+     * @param computation
+     * @return the query result
+     */
+    private <T> T query(final String query, final String currencyTag, final Object key, final Supplier<T> computation) {
+        return cryptoMetrics.timeQuery(query, currencyTag, () -> singleFlight.execute(query, key, computation));
+    }
+
+    private Statistics statistics(final String currency) {
+        log.debug("Processing currency {}", currency);
+
+        PriceSeries series = nonEmptySeries(currency);
+
+        return queryCache.statistics(currency, series.version(), () -> {
+            PriceSeries.View view = series.view();
+
+            return new Statistics(view.price(view.oldestIndex()),
+                    view.price(view.newestIndex()),
+                    view.price(view.minIndex()),
+                    view.price(view.maxIndex()));
+        });
+    }
+
+    private Statistics statistics(final String currency, final long from, final long to) {
+        log.debug("Processing currency {} between {} and {}", currency, from, to);
+
+        validateWindow(from, to);
+        PriceSeries series = priceStore.series(currency);
+
+        return queryCache.statistics(List.of(currency, from, to), series.version(), () -> {
+            PriceSeries.View view = series.view();
+            int first = firstRow(currency, view, from, to);
+            int end = view.lowerBound(to);
+
+            return new Statistics(view.price(first),
+                    view.price(view.lowerBound(view.timestamp(end - 1))),
+                    view.price(view.minIndex(first, end)),
+                    view.price(view.maxIndex(first, end)));
+        });
+    }
+
+    private Map<String, StatisticsResult> statistics(final List<String> currencies, final long from, final long to) {
+
+        validateWindow(from, to);
+        boolean wholeSeries = from == Long.MIN_VALUE && to == Long.MAX_VALUE;
+        List<String> distinctCurrencies = currencies.stream().distinct().toList();
+
+        List<StatisticsResult> results = parallelEvaluator.map(distinctCurrencies, curr -> {
+            try {
+                return StatisticsResult.of(wholeSeries ? statistics(curr) : statistics(curr, from, to));
+            } catch (UnsupportedCurrencyException | FileMissingException | FileParseException
+                     | RecordMissingInCsvException ex) {
+                return StatisticsResult.failed(ex.getMessage());
+            }
+        });
+
+        Map<String, StatisticsResult> statistics = new LinkedHashMap<>();
+        for (int i = 0; i < distinctCurrencies.size(); i++) {
+            statistics.put(distinctCurrencies.get(i), results.get(i));
+        }
+        return statistics;
+    }
+
+    private List<Candle> candleList(final String currency, final CandleInterval interval, final long from, final long to) {
+        log.debug("Processing {} candles of currency {} between {} and {}", interval, currency, from, to);
+
+        validateWindow(from, to);
+        PriceSeries series = priceStore.series(currency);
+
+        return queryCache.candles(List.of(currency, interval, from, to), series.version(), () -> {
+            PriceSeries.View view = series.view();
+            firstRow(currency, view, from, to);
+
+            return view.buckets(interval, from, to).stream()
+                    .map(bucket -> new Candle(bucket.start(),
+                            view.price(bucket.first()),
+                            view.price(bucket.max()),
+                            view.price(bucket.min()),
+                            view.price(bucket.last())))
+                    .toList();
+        });
+    }
+
+    private RollingAnalytics analytics(final String currency, final int window, final long from, final long to) {
+        log.debug("Processing rolling analytics over {} prices of currency {} between {} and {}", window, currency, from, to);
+
+        validateWindow(from, to);
+        if (window < 1 || window > MAX_ROLLING_WINDOW) {
+            throw new InvalidParameterException("Rolling window must be between 1 and " + MAX_ROLLING_WINDOW + " prices");
+        }
+        PriceSeries series = priceStore.series(currency);
+
+        return queryCache.rollingAnalytics(List.of(currency, window, from, to), series.version(), () -> {
+            PriceSeries.View view = series.view();
+            int first = firstRow(currency, view, from, to);
+            int end = view.lowerBound(to);
+            if (end - first > MAX_ROLLING_POINTS) {
+                throw new InvalidParameterException("Time window holds " + (end - first) + " prices, rolling analytics"
+                        + " are limited to " + MAX_ROLLING_POINTS + " prices per request");
+            }
+
+            return analytics(currency, view, window, first, end);
+        });
+    }
+
+    /**
+     * Slides the rolling window over the rows, starting up to window - 1 rows before the first one so that
+     * the first row is summarized over a full window whenever the series has enough prior rows
+     * @param currency
+     * @param view
+     * @param window
+     * @param first first row to report
+     * @param end row following the last one to report
+     * @return RollingAnalytics
+     */
+    private static RollingAnalytics analytics(final String currency, final PriceSeries.View view, final int window,
+                                              final int first, final int end) {
+        int scale = view.scale();
+        RollingWindow rolling = new RollingWindow(window);
+        List<RollingPoint> points = new ArrayList<>(end - first);
+        long peak = Long.MIN_VALUE;
+        long maxDrawdown = 0;
+        for (int i = Math.max(0, first - window + 1); i < end; i++) {
+            long price = view.unscaledPrice(i);
+            rolling.add(price);
+            if (i < first) {
+                continue;
+            }
+            peak = Math.max(peak, price);
+            maxDrawdown = Math.max(maxDrawdown, drawdown(peak, price));
+            points.add(new RollingPoint(view.timestamp(i),
+                    BigDecimal.valueOf(price, scale),
+                    decimal(rolling.mean(), scale),
+                    decimal(rolling.ema(), scale),
+                    decimal(rolling.standardDeviation(), scale),
+                    BigDecimal.valueOf(rolling.min(), scale),
+                    BigDecimal.valueOf(rolling.max(), scale),
+                    FixedPoint.toBigDecimal(drawdown(rolling.max(), price))));
+        }
+        return new RollingAnalytics(currency, window, FixedPoint.toBigDecimal(maxDrawdown), List.copyOf(points));
+    }
+
+    /**
+     * Calculates the decline of a price from a peak, i.e. (peak-price)/peak
+     * @param peak
+     * @param price
+     * @return drawdown with NORMALIZED_SCALE decimals
+     */
+    private static long drawdown(final long peak, final long price) {
+        return peak <= 0 ? 0 : FixedPoint.divideHalfUp(peak - price, peak);
+    }
+
+    /**
+     * Converts an average of unscaled prices to a price with ROLLING_EXTRA_DECIMALS more decimals than the series
+     * @param unscaled
+     * @param scale
+     * @return BigDecimal
+     */
+    private static BigDecimal decimal(final double unscaled, final int scale) {
+        return BigDecimal.valueOf(unscaled).setScale(ROLLING_EXTRA_DECIMALS, RoundingMode.HALF_UP).movePointLeft(scale);
+    }
+
+    private CorrelationMatrix correlationMatrix(final List<String> currencies, final CandleInterval interval,
+                                               final long from, final long to) {
+        log.debug("Processing {} correlation of currencies {} between {} and {}", interval, currencies, from, to);
+
+        validateWindow(from, to);
+        List<String> distinctCurrencies = (currencies.isEmpty() ? priceStore.supportedCurrencies() : currencies)
+                .stream().distinct().toList();
+
+        return queryCache.correlation(List.of(distinctCurrencies, interval, from, to), priceStore.version(), () -> {
+            List<Closes> closes = parallelEvaluator.map(distinctCurrencies, curr -> closes(curr, interval, from, to));
+            long[][] starts = new long[closes.size()][];
+            double[][] prices = new double[closes.size()][];
+            for (int i = 0; i < closes.size(); i++) {
+                starts[i] = closes.get(i).starts();
+                prices[i] = closes.get(i).prices();
+            }
+            return correlationCalculator.correlate(distinctCurrencies, interval, starts, prices, from, to);
+        });
+    }
+
+    /**
+     * Returns the close of every interval holding a price within the time window, failing when there is none
+     * @param currency
+     * @param interval
+     * @param from
+     * @param to
+     * @return Closes
+     */
+    private Closes closes(final String currency, final CandleInterval interval, final long from, final long to) {
+        PriceSeries.View view = priceStore.series(currency).view();
+        firstRow(currency, view, from, to);
+
+        List<RollupBucket> buckets = view.buckets(interval, from, to);
+        long[] starts = new long[buckets.size()];
+        double[] prices = new double[buckets.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = buckets.get(i).start();
+            prices[i] = view.price(buckets.get(i).last()).doubleValue();
+        }
+        return new Closes(starts, prices);
+    }
+
+    private HighestNormalizedData highestNormalized(final String date, final boolean skipMissing) {
+
+        DateUtil.validateDate(date);
+
+        DayLeader leader = dayLeader(date, LocalDate.parse(date).toEpochDay(), skipMissing);
+        if (leader.winner() == DayLeader.NONE) {
+            throw new RecordMissingInCsvException("No record found in csv files for date " + date);
+        }
+        return new HighestNormalizedData(FixedPoint.toBigDecimal(leader.normalizedValue()),
+                priceStore.registry().symbol(leader.winner()));
+    }
+
+    private List<DailyHighestNormalizedData> highestNormalizedPerDay(final String from, final String to,
+                                                                   final boolean skipMissing) {
+
+        DateUtil.validateDate(from);
+        DateUtil.validateDate(to);
+
+        LocalDate first = LocalDate.parse(from);
+        LocalDate last = LocalDate.parse(to);
+        if (last.isBefore(first) || last.toEpochDay() - first.toEpochDay() >= MAX_DAYS) {
+            throw new InvalidParameterException("Date span must end after it starts and not exceed " + MAX_DAYS + " days");
+        }
+
+        List<DailyHighestNormalizedData> leaders = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            DayLeader leader = dayLeader(date.toString(), date.toEpochDay(), skipMissing);
+            if (leader.winner() != DayLeader.NONE) {
+                leaders.add(new DailyHighestNormalizedData(date.toString(),
+                        FixedPoint.toBigDecimal(leader.normalizedValue()), priceStore.registry().symbol(leader.winner())));
+            }
+        }
+        return leaders;
+    }
+
+    /**
+     * Returns the leaderboard entry of a day. Unless missing currencies are skipped, the first currency without
+     * a price on that day fails the query, reporting why its series could not be read if it could not.
+     * @param date
+     * @param epochDay
+     * @param skipMissing
+     * @return DayLeader
+     */
+    private DayLeader dayLeader(final String date, final long epochDay, final boolean skipMissing) {
+        DayLeader leader = priceStore.leaderboard().leader(epochDay);
+        if (skipMissing || leader.missing() == DayLeader.NONE) {
+            return leader;
+        }
+        String currency = priceStore.registry().symbol(leader.missing());
+        nonEmptySeries(currency);
+
+        // the series may have been loaded just now
+        leader = priceStore.leaderboard().leader(epochDay);
+        if (leader.missing() != DayLeader.NONE) {
+            throw new RecordMissingInCsvException("No record found in csv "
+                    + priceStore.fileName(priceStore.registry().symbol(leader.missing())) + " for date " + date);
+        }
+        return leader;
+    }
+
+    private List<HighestNormalizedData> normalizedList(final int offset, final int limit) {
+
+        if (offset < 0 || limit < 0) {
+            throw new InvalidParameterException("Offset and limit must not be negative");
+        }
+
+        return queryCache.normalizedList(List.of(offset, limit), priceStore.version(), () -> {
+            List<String> currencies = priceStore.supportedCurrencies();
+            NormalizedRanking ranking = priceStore.ranking();
+
+            // a currency missing from the ranking could not be loaded, report why
+            if (ranking.size() < currencies.size()) {
+                currencies.forEach(this::nonEmptySeries);
+            }
+            return List.copyOf(ranking.page(offset, limit));
+        });
+    }
+
+    private List<HighestNormalizedData> normalizedList(final long from, final long to, final int offset, final int limit) {
+
+        if (offset < 0 || limit < 0) {
+            throw new InvalidParameterException("Offset and limit must not be negative");
+        }
+        validateWindow(from, to);
+
+        return queryCache.normalizedList(List.of(from, to, offset, limit), priceStore.version(), () -> {
+            List<String> currencies = priceStore.supportedCurrencies();
+            long[] normalizedValues = parallelEvaluator.map(currencies, curr -> {
+
+                log.debug("Processing currency {} between {} and {}", curr, from, to);
+
+                PriceSeries.View view = priceStore.series(curr).view();
+                int first = firstRow(curr, view, from, to);
+                int end = view.lowerBound(to);
+
+                return FixedPoint.normalizedRange(view.unscaledPrice(view.minIndex(first, end)),
+                        view.unscaledPrice(view.maxIndex(first, end)));
+            }).stream().mapToLong(Long::longValue).toArray();
+
+            Integer[] order = new Integer[currencies.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // stable sort, so currencies with the same range keep the supported order, unranked ones last
+            Arrays.sort(order, (a, b) -> Long.compare(normalizedValues[b], normalizedValues[a]));
+
+            List<HighestNormalizedData> list = new ArrayList<>();
+            for (int i = offset; i < order.length && list.size() < limit
+                    && normalizedValues[order[i]] != FixedPoint.UNRANKED; i++) {
+                list.add(new HighestNormalizedData(FixedPoint.toBigDecimal(normalizedValues[order[i]]), currencies.get(order[i])));
+            }
+            return List.copyOf(list);
+        });
+    }
+
+    /**
+     * Returns the first row of the window, failing when the window holds no row
+     * @param currency
+     * @param view
+     * @param from
+     * @param to
+     * @return row index
+     */
+    private int firstRow(final String currency, final PriceSeries.View view, final long from, final long to) {
+        int first = view.lowerBound(from);
+        if (first == view.lowerBound(to)) {
+            throw new RecordMissingInCsvException("No record found in csv " + priceStore.fileName(currency)
+                    + " between " + from + " and " + to);
+        }
+        return first;
     }
 
+    /**
+     * Tags the metrics of a query with its currency, grouping unsupported ones to bound the number of series
+     * @param currency
+     * @return tag value
+     */
+    private String currencyTag(final String currency) {
+        return priceStore.registry().contains(currency) ? currency : "unsupported";
+    }
+
+    private static void validateWindow(final long from, final long to) {
+        if (from >= to) {
+            throw new InvalidParameterException("Time window start must be before its end");
+        }
+    }
+
+    private PriceSeries nonEmptySeries(final String currency) {
+        PriceSeries series = priceStore.series(currency);
+        if (series.size() == 0) {
+            throw new RecordMissingInCsvException("No record found in csv " + priceStore.fileName(currency));
+        }
+        return series;
+    }
+
+    private record Closes(long[] starts, double[] prices) {
+    }
 }
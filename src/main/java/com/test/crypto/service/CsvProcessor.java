@@ -2,209 +2,189 @@ package com.test.crypto.service;
 
 import com.test.crypto.exception.FileMissingException;
 import com.test.crypto.exception.FileParseException;
-import com.test.crypto.exception.RecordMissingInCsvException;
-import com.test.crypto.model.HighestNormalizedData;
-import com.test.crypto.model.PriceData;
-import com.test.crypto.model.Statistics;
-import com.test.crypto.util.CurrencyValidator;
-import com.test.crypto.util.DateUtil;
+import com.test.crypto.ingest.ChunkedCsvLoader;
+import com.test.crypto.ingest.CsvPriceParser;
+import com.test.crypto.ingest.PriceFileTail;
+import com.test.crypto.ingest.PriceSnapshot;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.store.PriceSeries;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component
 @Slf4j
 @RefreshScope
 public class CsvProcessor {
 
-    @Value("${supported}")
-    private String supportedCurrency;
-
     @Value("${currency.file.suffix}")
     private String fileSuffix;
 
     @Value("${currency.file.directory}")
     private String directory;
 
-    private static final String FORWARD_SLASH = "/";
+    @Value("${currency.file.filesystem-directory:}")
+    private String filesystemDirectory;
 
-    private static final String EMPTY_STR = "";
+    @Value("${currency.snapshot.suffix}")
+    private String snapshotSuffix;
 
-    /**
-     * Returns the oldest/newest/min/max values for a requested crypto
-     * @param currency
-     * @return Statistics
-     */
-    public Statistics gatherStatistics(final String currency) {
-        log.debug("Processing currency {}", currency);
-
-        // check if the currency is supported or not
-        CurrencyValidator.validateCurrency(currency, supportedCurrency);
-        
-        List<PriceData> priceDataArrayList = processCsv(currency);
-
-        var minPrice = priceDataArrayList.stream().min(Comparator.comparing(PriceData::price));
-        var maxPrice = priceDataArrayList.stream().max(Comparator.comparing(PriceData::price));
-        var oldestPrice = priceDataArrayList.stream().min(Comparator.comparing(PriceData::localDate));
-        var latestPrice = priceDataArrayList.stream().max(Comparator.comparing(PriceData::localDate));
-
-        return new Statistics(oldestPrice.get().price(),
-                latestPrice.get().price(),
-                minPrice.get().price(),
-                maxPrice.get().price());
-    }
+    @Value("${currency.snapshot.directory:}")
+    private String snapshotDirectory;
 
-    /**
-     * Returns the crypto with the highest normalized range for a specific day
-     * @param date
-     * @return HighestNormalizedData
-     */
-    public HighestNormalizedData findHighestNormalizedCrypto(final String date) {
+    @Value("${crypto.load.chunk-size:64MB}")
+    private DataSize chunkSize;
 
-        DateUtil.validateDate(date);
+    @Value("${crypto.store.compression:false}")
+    private boolean compression;
 
-        BigDecimal maxValue = new BigDecimal(0);
-        String currency = EMPTY_STR;
-        String fileName;
-        List<PriceData> priceDataArrayList;
-        String[] currencies = supportedCurrency.split(",");
-
-        for (String curr : currencies) {
-            fileName = curr + fileSuffix;
+    private static final String FORWARD_SLASH = "/";
 
-            log.debug("Processing file {} for the selected date {}", fileName, date);
+    private final Map<String, PriceFileTail> tails = new ConcurrentHashMap<>();
 
-            priceDataArrayList = processCsv(curr);
+    private final CryptoMetrics cryptoMetrics;
 
-            Map<String, HighestNormalizedData> map = getHighestNormalizedData(date, priceDataArrayList);
+    private final ExecutorService loadExecutor;
 
-            if (!map.containsKey(date)) {
-                throw new RecordMissingInCsvException("No record found in csv " + fileName + " for date " + date);
-            }
-            BigDecimal maxNormalizedValue = map.get(date).normalizedRange();
-            if (maxValue.compareTo(maxNormalizedValue) <= 0) {
-                maxValue = maxNormalizedValue;
-                currency = map.get(date).currency();
-            }
-        }
-        return new HighestNormalizedData(maxValue, currency);
+    public CsvProcessor(final CryptoMetrics cryptoMetrics, @Qualifier("loadExecutor") final ExecutorService loadExecutor) {
+        this.cryptoMetrics = cryptoMetrics;
+        this.loadExecutor = loadExecutor;
     }
 
     /**
-     * Return a descending sorted list of all the cryptos, comparing the normalized range
-     * @return list of HighestNormalizedData
+     * Loads the price series of a currency, preferring its binary snapshot when one is present
+     * and parsing the csv file of the filesystem directory or of the classpath otherwise
+     * @param currencyName
+     * @return PriceSeries
      */
-    public List<HighestNormalizedData> sortedNormalizedList() {
+    public PriceSeries processCsv(final String currencyName) {
+
+        if (!snapshotDirectory.isEmpty()) {
+            Path snapshot = Path.of(snapshotDirectory, currencyName + snapshotSuffix);
+            if (Files.isRegularFile(snapshot)) {
+                return load(currencyName, "snapshot", () -> processSnapshot(currencyName, snapshot));
+            }
+        }
+
+        if (!filesystemDirectory.isEmpty()) {
+            return load(currencyName, "file", () -> processFile(currencyName));
+        }
+
+        return load(currencyName, "classpath", () -> processResource(currencyName));
+    }
 
-        List<HighestNormalizedData> list = new ArrayList<>();
-        List<PriceData> priceDataArrayList;
-        String fileName;
-        String[] currencies = supportedCurrency.split(",");
+    private PriceSeries load(final String currencyName, final String source, final Supplier<PriceSeries> loader) {
+        long start = System.nanoTime();
+        PriceSeries priceSeries = cryptoMetrics.timeLoad(currencyName, source, loader);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        log.info("Loaded {} rows of currency {} from {} in {} ms, {} rows/s", priceSeries.size(), currencyName, source,
+                TimeUnit.NANOSECONDS.toMillis(nanos), priceSeries.size() * TimeUnit.SECONDS.toNanos(1) / nanos);
+        return priceSeries;
+    }
 
-        for (String curr : currencies) {
+    private PriceSeries processResource(final String currencyName) {
 
-            fileName = curr + fileSuffix;
+        String fileName = fileName(currencyName);
+        InputStream filePath = getClass().getResourceAsStream(directory + FORWARD_SLASH + fileName);
 
-            log.debug("Processing file {}", fileName);
+        if (null == filePath) {
+            throw new FileMissingException("File missing = " + fileName);
+        }
 
-            priceDataArrayList = processCsv(curr);
+        log.debug("Processing file {}", fileName);
 
-            var min = priceDataArrayList.stream().min(Comparator.comparing(PriceData::price));
-            var max = priceDataArrayList.stream().max(Comparator.comparing(PriceData::price));
+        PriceSeries priceSeries = new PriceSeries(currencyName, compression);
 
-            BigDecimal normalizedValue = (max.get().price().subtract(min.get().price())).divide(min.get().price(), 2, RoundingMode.HALF_UP);
-            list.add(new HighestNormalizedData(normalizedValue, priceDataArrayList.get(0).currency()));
+        // a price whose decimals no longer fit in a long once the series is rescaled fails the file as well
+        try (InputStream in = filePath) {
+            new CsvPriceParser(fileName, priceSeries::append).parse(in);
+        } catch (IOException | ArithmeticException e) {
+            throw new FileParseException("Error occurred while reading csv file " + fileName);
         }
-        list.sort(Comparator.comparing(HighestNormalizedData::normalizedRange).reversed());
-        return list;
+        cryptoMetrics.timeIndex(currencyName, priceSeries::sortByTime);
+        return priceSeries;
     }
 
     /**
-     * Gets the highest normalized cryptocurrency in the list
-     * @param date
-     * @param priceDataArrayList
-     * @return
+     * Parses the rows appended to the filesystem csv file of a currency since it was last read
+     * @param currencyName
+     * @return false when the file of the currency is not being tailed
      */
-    private Map<String, HighestNormalizedData> getHighestNormalizedData(final String date, final List<PriceData> priceDataArrayList) {
-        var min = priceDataArrayList.stream().min(Comparator.comparing(PriceData::price));
-        var max = priceDataArrayList.stream().max(Comparator.comparing(PriceData::price));
-
-        Map<String, HighestNormalizedData> highestNormalizedMap = new HashMap<>();
-
-        for (PriceData priceData : priceDataArrayList) {
-            var dateKey = priceData.localDate().toLocalDate().toString();
-            if (date.equals(dateKey)) {
-                var normalizedPrice = normalize(priceData.price(), min.get().price(), max.get().price());
-                if (highestNormalizedMap.containsKey(dateKey)) {
-                    if (highestNormalizedMap.get(dateKey).normalizedRange().compareTo(normalizedPrice) < 0) {
-                        highestNormalizedMap.put(dateKey, new HighestNormalizedData(normalizedPrice, priceData.currency()));
-                    }
-                } else {
-                    highestNormalizedMap.put(dateKey, new HighestNormalizedData(normalizedPrice, priceData.currency()));
-                }
-            }
+    public boolean tail(final String currencyName) {
+        PriceFileTail tail = tails.get(currencyName);
+        if (null == tail) {
+            return false;
         }
-        return highestNormalizedMap;
+        try {
+            long start = System.nanoTime();
+            long rows = tail.poll();
+            cryptoMetrics.recordTail(currencyName, System.nanoTime() - start, rows);
+            log.debug("Ingested {} new rows of currency {}", rows, currencyName);
+        } catch (IOException | ArithmeticException e) {
+            throw new FileParseException("Error occurred while reading csv file " + fileName(currencyName));
+        }
+        return true;
     }
 
-    private List<PriceData> processCsv(final String currencyName) {
+    private PriceSeries processFile(final String currencyName) {
 
-        String fileName = currencyName + fileSuffix;
-        InputStream filePath = getClass().getResourceAsStream(directory + FORWARD_SLASH + fileName);
+        String fileName = fileName(currencyName);
+        Path file = Path.of(filesystemDirectory, fileName);
 
-        if (null == filePath) {
+        if (!Files.isRegularFile(file)) {
             throw new FileMissingException("File missing = " + fileName);
         }
 
-        List<PriceData> priceDataArrayList = new ArrayList<>();
+        log.debug("Processing file {}", file);
 
-        try (BufferedReader b = new BufferedReader(new InputStreamReader(filePath))) {
-            String readLine;
-            String[] namesString;
-            b.readLine();
+        PriceSeries priceSeries = new PriceSeries(currencyName, compression);
 
-            while ((readLine = b.readLine()) != null) {
-                namesString = readLine.split(",");
+        try {
+            PriceFileTail tail;
+            // a large file is parsed in chunks on several cores, the tail then follows from the last parsed row
+            if (Files.size(file) > chunkSize.toBytes()) {
+                long offset = new ChunkedCsvLoader(file, chunkSize.toBytes(), loadExecutor).load(priceSeries);
+                tail = new PriceFileTail(file, priceSeries, offset);
+            } else {
+                tail = new PriceFileTail(file, priceSeries);
+            }
+            tail.poll();
+            tails.put(currencyName, tail);
+        } catch (IOException | ArithmeticException e) {
+            throw new FileParseException("Error occurred while reading csv file " + fileName);
+        }
+        return priceSeries;
+    }
 
-                var localDateTime =
-                        LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(namesString[0])
-                        ), ZoneOffset.UTC);
+    private PriceSeries processSnapshot(final String currencyName, final Path snapshot) {
 
-                //add data to model
-                priceDataArrayList.add(new PriceData(localDateTime,
-                        currencyName,
-                        new BigDecimal(namesString[2])));
-            }
-        } catch (IOException e) {
-            throw new FileParseException("Error occurred while reading csv file " + currencyName + fileSuffix);
+        log.debug("Processing snapshot {}", snapshot);
+
+        PriceSeries priceSeries = new PriceSeries(currencyName, compression);
+
+        try {
+            PriceSnapshot.read(snapshot, priceSeries::append);
+        } catch (IOException | ArithmeticException e) {
+            throw new FileParseException("Error occurred while reading snapshot " + snapshot.getFileName());
         }
-        return priceDataArrayList;
+        cryptoMetrics.timeIndex(currencyName, priceSeries::sortByTime);
+        return priceSeries;
     }
 
-    /**
-     * Calculates normalized range for each price
-     * @param inValue
-     * @param min
-     * @param max
-     * @return
-     */
-    public BigDecimal normalize(final BigDecimal inValue, final BigDecimal min, final BigDecimal max) {
-        return (inValue.subtract(min)).divide(max.subtract(min), 2, RoundingMode.HALF_UP);
+    public String fileName(final String currencyName) {
+        return currencyName + fileSuffix;
     }
 }
@@ -0,0 +1,73 @@
+package com.test.crypto.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Evaluates currencies concurrently in contiguous batches on the query executor. Batches are combined
+ * in currency order, so results and tie breaking are the same as a sequential loop, and the exception of
+ * the first failing currency is the one rethrown.
+ */
+@Component
+public class ParallelEvaluator {
+
+    private static final int MIN_BATCH_SIZE = 16;
+
+    private final ExecutorService queryExecutor;
+
+    public ParallelEvaluator(@Qualifier("queryExecutor") final ExecutorService queryExecutor) {
+        this.queryExecutor = queryExecutor;
+    }
+
+    /**
+     * Applies the function to every currency
+     * @param currencies
+     * @param function
+     * @return results in currency order
+     */
+    public <T> List<T> map(final List<String> currencies, final Function<String, T> function) {
+        List<List<T>> batches = evaluate(currencies, batch -> {
+            List<T> results = new ArrayList<>(batch.size());
+            for (String currency : batch) {
+                results.add(function.apply(currency));
+            }
+            return results;
+        });
+        List<T> results = new ArrayList<>(currencies.size());
+        batches.forEach(results::addAll);
+        return results;
+    }
+
+    private <R> List<R> evaluate(final List<String> currencies, final Function<List<String>, R> batchFunction) {
+        int batchSize = Math.max(MIN_BATCH_SIZE, currencies.size() / Runtime.getRuntime().availableProcessors() + 1);
+        if (currencies.size() <= batchSize) {
+            return List.of(batchFunction.apply(currencies));
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        for (int from = 0; from < currencies.size(); from += batchSize) {
+            List<String> batch = currencies.subList(from, Math.min(from + batchSize, currencies.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> batchFunction.apply(batch), queryExecutor));
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        return results;
+    }
+}
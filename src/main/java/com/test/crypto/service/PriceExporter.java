@@ -0,0 +1,151 @@
+package com.test.crypto.service;
+
+import com.test.crypto.exception.InvalidParameterException;
+import com.test.crypto.model.ExportFormat;
+import com.test.crypto.store.PriceSeries;
+import com.test.crypto.store.PriceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams the rows of price series straight from the store. Rows are encoded into a fixed size buffer
+ * that is flushed to the response as it fills, so an export holds constant memory whatever its length
+ * and is paced by the client reading the response.
+ */
+@Service
+@Slf4j
+public class PriceExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // longest encoded row: prefix, currency, two longs with sign and decimal point, separators
+    private static final int MAX_ROW_BYTES = 128;
+
+    private static final byte[] CURRENCY_FIELD = "{\"currency\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TIMESTAMP_FIELD = "\",\"timestamp\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PRICE_FIELD = ",\"price\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final PriceStore priceStore;
+
+    public PriceExporter(final PriceStore priceStore) {
+        this.priceStore = priceStore;
+    }
+
+    /**
+     * Resolves the series of the currencies up front, so that an unsupported or unreadable currency fails the
+     * request before any row is written, and returns the body streaming their rows within [from, to)
+     * @param currencies
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @param format
+     * @return StreamingResponseBody
+     */
+    public StreamingResponseBody export(final List<String> currencies, final long from, final long to,
+                                        final ExportFormat format) {
+
+        if (from >= to) {
+            throw new InvalidParameterException("Time window start must be before its end");
+        }
+
+        List<PriceSeries> series = currencies.stream().distinct().map(priceStore::series).toList();
+
+        return out -> {
+            long rows = 0;
+            for (PriceSeries priceSeries : series) {
+                rows += write(priceSeries, from, to, format, out);
+            }
+            out.flush();
+            log.debug("Exported {} rows of currencies {}", rows, currencies);
+        };
+    }
+
+    private static long write(final PriceSeries series, final long from, final long to, final ExportFormat format,
+                              final OutputStream out) throws IOException {
+
+        byte[] currency = series.currency().getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int position = 0;
+
+        // rows appended while exporting are left out, the rows and their scale are fixed when the export starts
+        PriceSeries.View view = series.view();
+        int first = view.lowerBound(from);
+        int end = view.lowerBound(to);
+        int scale = view.scale();
+
+        for (int i = first; i < end; i++) {
+            if (position + MAX_ROW_BYTES + currency.length > buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            if (format == ExportFormat.SSE) {
+                position = put(buffer, position, SSE_DATA);
+            }
+            position = put(buffer, position, CURRENCY_FIELD);
+            position = put(buffer, position, currency);
+            position = put(buffer, position, TIMESTAMP_FIELD);
+            position = putDecimal(buffer, position, view.timestamp(i), 0);
+            position = put(buffer, position, PRICE_FIELD);
+            position = putDecimal(buffer, position, view.unscaledPrice(i), scale);
+            buffer[position++] = '}';
+            buffer[position++] = '\n';
+            if (format == ExportFormat.SSE) {
+                buffer[position++] = '\n';
+            }
+        }
+        out.write(buffer, 0, position);
+        return end - first;
+    }
+
+    private static int put(final byte[] buffer, final int position, final byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    /**
+     * Writes unscaled * 10^-scale in plain notation, without allocating
+     * @param buffer
+     * @param position
+     * @param unscaled
+     * @param scale
+     * @return position after the number
+     */
+    private static int putDecimal(final byte[] buffer, final int position, final long unscaled, final int scale) {
+        int start = position;
+        if (unscaled < 0) {
+            buffer[start++] = '-';
+        }
+        // digits are produced from the least significant one on negative values, so Long.MIN_VALUE is covered
+        long remaining = unscaled < 0 ? unscaled : -unscaled;
+        int digits = 0;
+        for (long value = remaining; value != 0; value /= 10) {
+            digits++;
+        }
+        int integerDigits = Math.max(digits - scale, 1);
+        int length = integerDigits + (scale > 0 ? 1 + scale : 0);
+        int end = start + length;
+
+        int cursor = end;
+        for (int i = 0; i < scale; i++) {
+            buffer[--cursor] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            buffer[--cursor] = '.';
+        }
+        for (int i = 0; i < integerDigits; i++) {
+            buffer[--cursor] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        return end;
+    }
+}
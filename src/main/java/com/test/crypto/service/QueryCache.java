@@ -0,0 +1,110 @@
+package com.test.crypto.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.test.crypto.model.Candle;
+import com.test.crypto.model.CorrelationMatrix;
+import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.model.RollingAnalytics;
+import com.test.crypto.model.Statistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caches query results keyed by the version of the data they were computed from. Statistics carry the version
+ * of their currency's series and cross-currency results the version of the whole store, so an entry is
+ * never served once its data changed and stays cached for as long as it did not. Versions are drawn from
+ * process-wide counters, so a store reloaded by a refresh never reuses the version of an earlier one.
+ * <p>
+ * Each cache is bounded by the total number of elements of its results, a statistics entry weighing one and a
+ * list one per item, so that a few large results cannot hold an unbounded amount of memory. Superseded entries
+ * are dropped by that bound, and everything is cleared when a refresh reloads the supported currencies.
+ */
+@Component
+@Slf4j
+public class QueryCache {
+
+    private final Cache<VersionedKey, Statistics> statistics;
+
+    private final Cache<VersionedKey, List<HighestNormalizedData>> normalizedList;
+
+    private final Cache<VersionedKey, List<Candle>> candles;
+
+    private final Cache<VersionedKey, RollingAnalytics> rollingAnalytics;
+
+    private final Cache<VersionedKey, CorrelationMatrix> correlation;
+
+    public QueryCache(final MeterRegistry meterRegistry,
+                      @Value("${crypto.cache.maximum-weight:200000}") final long maximumWeight) {
+        this.statistics = cache(meterRegistry, maximumWeight, result -> 1, "statistics");
+        this.normalizedList = cache(meterRegistry, maximumWeight, List::size, "normalized-list");
+        this.candles = cache(meterRegistry, maximumWeight, List::size, "candles");
+        this.rollingAnalytics = cache(meterRegistry, maximumWeight, result -> result.points().size(), "analytics");
+        this.correlation = cache(meterRegistry, maximumWeight,
+                result -> result.currencies().size() * result.currencies().size(), "correlation");
+    }
+
+    /**
+     * Builds a cache bounded by the total weight of its results
+     * @param meterRegistry
+     * @param maximumWeight
+     * @param elements number of elements of a result
+     * @param name
+     * @return Cache
+     */
+    private static <V> Cache<VersionedKey, V> cache(final MeterRegistry meterRegistry, final long maximumWeight,
+                                                   final ToIntFunction<V> elements, final String name) {
+        // the key and the result itself weigh one, so that empty results are bounded too
+        Cache<VersionedKey, V> cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<VersionedKey, V>weigher((key, result) -> 1 + elements.applyAsInt(result))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    public Statistics statistics(final Object query, final long version, final Supplier<Statistics> loader) {
+        return statistics.get(new VersionedKey(query, version), key -> loader.get());
+    }
+
+    public List<HighestNormalizedData> normalizedList(final Object query, final long version,
+                                                      final Supplier<List<HighestNormalizedData>> loader) {
+        return normalizedList.get(new VersionedKey(query, version), key -> loader.get());
+    }
+
+    public List<Candle> candles(final Object query, final long version, final Supplier<List<Candle>> loader) {
+        return candles.get(new VersionedKey(query, version), key -> loader.get());
+    }
+
+    public RollingAnalytics rollingAnalytics(final Object query, final long version,
+                                             final Supplier<RollingAnalytics> loader) {
+        return rollingAnalytics.get(new VersionedKey(query, version), key -> loader.get());
+    }
+
+    public CorrelationMatrix correlation(final Object query, final long version,
+                                         final Supplier<CorrelationMatrix> loader) {
+        return correlation.get(new VersionedKey(query, version), key -> loader.get());
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void clear() {
+        log.debug("Clearing query caches after refresh");
+        statistics.invalidateAll();
+        normalizedList.invalidateAll();
+        candles.invalidateAll();
+        rollingAnalytics.invalidateAll();
+        correlation.invalidateAll();
+    }
+
+    private record VersionedKey(Object query, long version) {
+    }
+}
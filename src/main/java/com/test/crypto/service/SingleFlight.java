@@ -0,0 +1,75 @@
+package com.test.crypto.service;
+
+import com.test.crypto.metrics.CryptoMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical queries. The first caller of a key computes the result on its own thread,
+ * callers arriving while it runs wait for that result, or exception, instead of computing it again. A key is
+ * forgotten as soon as its computation completes, keeping results is left to the QueryCache.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final CryptoMetrics cryptoMetrics;
+
+    public SingleFlight(final CryptoMetrics cryptoMetrics) {
+        this.cryptoMetrics = cryptoMetrics;
+    }
+
+    /**
+     * Returns the result of the computation in flight for the key, starting it if there is none. The computation
+     * must not execute a query with the same key, it would wait for itself.
+     * @param query name of the query
+     * @param key parameters of the query
+     * @param computation
+     * @return the query result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(final String query, final Object key, final Supplier<T> computation) {
+        FlightKey flightKey = new FlightKey(query, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (null != leader) {
+            cryptoMetrics.recordCoalesced(query);
+            return (T) join(leader);
+        }
+
+        try {
+            T result = computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static Object join(final CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            // the exception of the leading call, so that every caller gets the same error response
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record FlightKey(String query, Object key) {
+    }
+}
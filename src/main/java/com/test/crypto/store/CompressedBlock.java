@@ -0,0 +1,305 @@
+package com.test.crypto.store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable Gorilla style compressed block of {@link #ROWS} rows of a series. Timestamps are stored as the delta
+ * of their delta, which is a single bit for a regular cadence, and prices as the zigzag encoded delta to the
+ * previous price, both with variable bit widths. The header keeps the first and last timestamp and the min
+ * and max price with their rows, so bisecting by time and comparing the extremes of whole blocks never decode
+ * a block. Other rows are read from a small per-thread cache of decoded blocks.
+ */
+final class CompressedBlock {
+
+    static final int SHIFT = 7;
+
+    static final int ROWS = 1 << SHIFT;
+
+    private static final int CACHE_SLOTS = 8;
+
+    // consecutive blocks map to different cache slots
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private static final ThreadLocal<DecodeCache> CACHE = ThreadLocal.withInitial(DecodeCache::new);
+
+    // object header, fields and the header of the bit array
+    private static final int HEADER_BYTES = 80;
+
+    private final long[] bits;
+
+    private final int scale;
+
+    private final int slot;
+
+    private final long firstTimestamp;
+
+    private final long lastTimestamp;
+
+    private final int minOffset;
+
+    private final int maxOffset;
+
+    private final long minPrice;
+
+    private final long maxPrice;
+
+    private CompressedBlock(final long[] bits, final int scale, final long firstTimestamp, final long lastTimestamp,
+                            final int minOffset, final int maxOffset, final long minPrice, final long maxPrice) {
+        this.bits = bits;
+        this.scale = scale;
+        this.slot = SEQUENCE.getAndIncrement() & (CACHE_SLOTS - 1);
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+        this.minOffset = minOffset;
+        this.maxOffset = maxOffset;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Compresses the first {@link #ROWS} rows of the columns
+     * @param timestamps epoch millis
+     * @param prices unscaled prices
+     * @param scale scale of the prices
+     * @return CompressedBlock
+     */
+    static CompressedBlock encode(final long[] timestamps, final long[] prices, final int scale) {
+        BitWriter writer = new BitWriter();
+        int minOffset = 0;
+        int maxOffset = 0;
+        long previousDelta = 0;
+        for (int i = 1; i < ROWS; i++) {
+            long delta = timestamps[i] - timestamps[i - 1];
+            writer.writeDeltaOfDelta(zigzag(delta - previousDelta));
+            writer.writeDelta(zigzag(prices[i] - prices[i - 1]));
+            previousDelta = delta;
+            // ties keep the earliest row, as the range index does
+            if (prices[i] < prices[minOffset]) {
+                minOffset = i;
+            }
+            if (prices[i] > prices[maxOffset]) {
+                maxOffset = i;
+            }
+        }
+        return new CompressedBlock(writer.toArray(), scale, timestamps[0], timestamps[ROWS - 1],
+                minOffset, maxOffset, prices[minOffset], prices[maxOffset]);
+    }
+
+    long timestamp(final int offset) {
+        if (offset == 0) {
+            return firstTimestamp;
+        }
+        if (offset == ROWS - 1) {
+            return lastTimestamp;
+        }
+        return decoded().timestamps()[offset];
+    }
+
+    /**
+     * Returns the price of a row at the scale of the block
+     * @param offset
+     * @return unscaled price
+     */
+    long unscaledPrice(final int offset) {
+        if (offset == minOffset) {
+            return minPrice;
+        }
+        if (offset == maxOffset) {
+            return maxPrice;
+        }
+        return decoded().prices()[offset];
+    }
+
+    int scale() {
+        return scale;
+    }
+
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    int minOffset() {
+        return minOffset;
+    }
+
+    int maxOffset() {
+        return maxOffset;
+    }
+
+    long minPrice() {
+        return minPrice;
+    }
+
+    long maxPrice() {
+        return maxPrice;
+    }
+
+    long memoryBytes() {
+        return HEADER_BYTES + (long) bits.length * Long.BYTES;
+    }
+
+    private Decoded decoded() {
+        DecodeCache cache = CACHE.get();
+        Decoded decoded = cache.slots[slot];
+        if (null == decoded || decoded.block() != this) {
+            decoded = decode(null == decoded ? new long[ROWS] : decoded.timestamps(),
+                    null == decoded ? new long[ROWS] : decoded.prices());
+            cache.slots[slot] = decoded;
+        }
+        return decoded;
+    }
+
+    private Decoded decode(final long[] timestamps, final long[] prices) {
+        timestamps[0] = firstTimestamp;
+        // the first price is not stored, it is recovered from the min price and the deltas
+        prices[0] = 0;
+        long delta = 0;
+        long position = 0;
+        for (int i = 1; i < ROWS; i++) {
+            // the prefix of a delta of delta is at most 4 bits, '0', '10', '110', '1110' or '1111'
+            int prefix = (int) bits(bits, position, 4);
+            long deltaOfDelta;
+            if (prefix < 0b1000) {
+                deltaOfDelta = 0;
+                position += 1;
+            } else if (prefix < 0b1100) {
+                deltaOfDelta = bits(bits, position + 2, 8);
+                position += 2 + 8;
+            } else if (prefix < 0b1110) {
+                deltaOfDelta = bits(bits, position + 3, 16);
+                position += 3 + 16;
+            } else if (prefix == 0b1110) {
+                deltaOfDelta = bits(bits, position + 4, 32);
+                position += 4 + 32;
+            } else {
+                deltaOfDelta = bits(bits, position + 4, 64);
+                position += 4 + 64;
+            }
+            delta += unzigzag(deltaOfDelta);
+            timestamps[i] = timestamps[i - 1] + delta;
+
+            long priceDelta = 0;
+            if (bits(bits, position, 1) == 0) {
+                position += 1;
+            } else {
+                int length = (int) bits(bits, position + 1, 6) + 1;
+                priceDelta = bits(bits, position + 7, length);
+                position += 7 + length;
+            }
+            prices[i] = prices[i - 1] + unzigzag(priceDelta);
+        }
+        long shift = minPrice - prices[minOffset];
+        for (int i = 0; i < ROWS; i++) {
+            prices[i] += shift;
+        }
+        return new Decoded(this, timestamps, prices);
+    }
+
+    /**
+     * Reads a bit field. The array is padded with a word, so that a field read as a prefix past the last
+     * written bit stays within it.
+     * @param words
+     * @param position of the first bit
+     * @param length between 1 and 64
+     * @return the field in the low bits
+     */
+    private static long bits(final long[] words, final long position, final int length) {
+        int word = (int) (position >>> 6);
+        int used = (int) (position & 63);
+        long value = (words[word] << used) >>> (Long.SIZE - length);
+        int available = Long.SIZE - used;
+        if (length > available) {
+            value |= words[word + 1] >>> (Long.SIZE - (length - available));
+        }
+        return value;
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private record Decoded(CompressedBlock block, long[] timestamps, long[] prices) {
+    }
+
+    private static final class DecodeCache {
+
+        private final Decoded[] slots = new Decoded[CACHE_SLOTS];
+    }
+
+    /**
+     * Appends bit fields to a growing array of words, most significant bit first
+     */
+    private static final class BitWriter {
+
+        private long[] words = new long[8];
+
+        private long position;
+
+        /**
+         * Writes a zigzag encoded delta of delta as '0', or a prefix selecting 8, 16, 32 or 64 bits
+         * @param value
+         */
+        void writeDeltaOfDelta(final long value) {
+            if (value == 0) {
+                write(0, 1);
+            } else if (value >>> 8 == 0) {
+                write(0b10, 2);
+                write(value, 8);
+            } else if (value >>> 16 == 0) {
+                write(0b110, 3);
+                write(value, 16);
+            } else if (value >>> 32 == 0) {
+                write(0b1110, 4);
+                write(value, 32);
+            } else {
+                write(0b1111, 4);
+                write(value, 64);
+            }
+        }
+
+        /**
+         * Writes a zigzag encoded delta as '0', or as '1' followed by its bit length on 6 bits and its bits
+         * @param value
+         */
+        void writeDelta(final long value) {
+            if (value == 0) {
+                write(0, 1);
+            } else {
+                int length = Long.SIZE - Long.numberOfLeadingZeros(value);
+                write(1, 1);
+                write(length - 1, 6);
+                write(value, length);
+            }
+        }
+
+        private void write(final long value, final int length) {
+            int word = (int) (position >>> 6);
+            int used = (int) (position & 63);
+            if (word + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            long field = length == Long.SIZE ? value : value & ((1L << length) - 1);
+            int free = Long.SIZE - used;
+            if (length <= free) {
+                words[word] |= length == Long.SIZE ? field : field << (free - length);
+            } else {
+                words[word] |= field >>> (length - free);
+                words[word + 1] |= field << (Long.SIZE - (length - free));
+            }
+            position += length;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((position + 63) >>> 6) + 1);
+        }
+    }
+}
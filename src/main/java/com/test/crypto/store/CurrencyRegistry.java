@@ -0,0 +1,65 @@
+package com.test.crypto.store;
+
+import com.test.crypto.exception.UnsupportedCurrencyException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the supported currency symbols to dense ids, numbered in supported order, so that stores and
+ * indexes are arrays indexed by id and a currency is validated by a single hash lookup
+ */
+@Slf4j
+public class CurrencyRegistry {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> symbols;
+
+    public CurrencyRegistry(final List<String> currencies) {
+        List<String> interned = new ArrayList<>();
+        for (String currency : currencies) {
+            if (null == ids.putIfAbsent(currency, interned.size())) {
+                interned.add(currency);
+            }
+        }
+        this.symbols = List.copyOf(interned);
+    }
+
+    /**
+     * Returns the id of a supported currency. For unsupported cryptocurrency throw exception
+     * @param currency
+     * @return id in [0, size)
+     */
+    public int id(final String currency) {
+        Integer id = null == currency ? null : ids.get(currency);
+        if (null == id) {
+            log.info("Currency {} not supported", currency);
+            throw new UnsupportedCurrencyException("Currency not supported");
+        }
+        return id;
+    }
+
+    public boolean contains(final String currency) {
+        return null != currency && ids.containsKey(currency);
+    }
+
+    public String symbol(final int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * Returns the supported currencies, in id order
+     * @return symbols
+     */
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+}
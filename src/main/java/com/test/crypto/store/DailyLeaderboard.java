@@ -0,0 +1,121 @@
+package com.test.crypto.store;
+
+import com.test.crypto.util.FixedPoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Date keyed leaderboard of the highest normalized price per UTC day. The normalized price of a day depends on
+ * the day's highest price and on the whole-series min and max, so an entry is recomputed only once rows were
+ * appended to its day or the min or max of a series changed. Entries are computed for every day when the
+ * store is loaded, and lookups of an unchanged day are a single hash lookup.
+ */
+public class DailyLeaderboard {
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final CurrencyRegistry registry;
+
+    private final IntFunction<PriceSeries> loadedSeries;
+
+    private final Map<Long, DayLeader> leaders = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> dayVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong extremesVersion = new AtomicLong();
+
+    /**
+     * @param registry
+     * @param loadedSeries series of a currency id, null when it is not loaded
+     */
+    public DailyLeaderboard(final CurrencyRegistry registry, final IntFunction<PriceSeries> loadedSeries) {
+        this.registry = registry;
+        this.loadedSeries = loadedSeries;
+    }
+
+    /**
+     * Invalidates every day, as the min or max of a series changed or a series was loaded
+     */
+    public void extremesChanged() {
+        extremesVersion.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the day of the row just appended to the series
+     * @param series
+     */
+    public void rowAppended(final PriceSeries series) {
+        PriceSeries.View view = series.view();
+        if (view.size() > 0) {
+            dayVersions.merge(Math.floorDiv(view.timestamp(view.size() - 1), MILLIS_PER_DAY), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Computes the entry of every day holding a price of a loaded series
+     */
+    public void precompute() {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int id = 0; id < registry.size(); id++) {
+            PriceSeries series = loadedSeries.apply(id);
+            PriceSeries.View view = null == series ? null : series.view();
+            if (null != view && view.size() > 0) {
+                first = Math.min(first, Math.floorDiv(view.timestamp(view.oldestIndex()), MILLIS_PER_DAY));
+                last = Math.max(last, Math.floorDiv(view.timestamp(view.newestIndex()), MILLIS_PER_DAY));
+            }
+        }
+        for (long epochDay = first; epochDay <= last; epochDay++) {
+            leader(epochDay);
+        }
+    }
+
+    /**
+     * Returns the entry of a day, recomputing it if its data changed since it was computed
+     * @param epochDay
+     * @return DayLeader
+     */
+    public DayLeader leader(final long epochDay) {
+        // versions are read before computing, so a change made meanwhile invalidates the new entry
+        long extremes = extremesVersion.get();
+        long day = dayVersions.getOrDefault(epochDay, 0L);
+        DayLeader leader = leaders.get(epochDay);
+        if (null == leader || leader.extremesVersion() != extremes || leader.dayVersion() != day) {
+            leader = compute(epochDay, extremes, day);
+            // days without any price are not kept, so that arbitrary spans do not grow the leaderboard
+            if (leader.winner() != DayLeader.NONE) {
+                leaders.put(epochDay, leader);
+            }
+        }
+        return leader;
+    }
+
+    private DayLeader compute(final long epochDay, final long extremes, final long day) {
+        int winner = DayLeader.NONE;
+        long normalizedValue = 0;
+        int missing = DayLeader.NONE;
+        for (int id = 0; id < registry.size(); id++) {
+            PriceSeries series = loadedSeries.apply(id);
+            PriceSeries.View view = null == series ? null : series.view();
+            RollupBucket bucket = null == view || view.size() == 0 ? null : view.day(epochDay);
+            if (null == bucket) {
+                missing = missing == DayLeader.NONE ? id : missing;
+                continue;
+            }
+            // normalizing is monotonic, so the day's highest price has the highest normalized value
+            long min = view.unscaledPrice(view.minIndex());
+            long max = view.unscaledPrice(view.maxIndex());
+            // a single row or flat series has no range, its prices normalize to 0
+            long value = max == min ? 0 : FixedPoint.normalize(view.unscaledPrice(bucket.max()), min, max);
+            if (winner == DayLeader.NONE || value >= normalizedValue) {
+                winner = id;
+                normalizedValue = value;
+            }
+        }
+        return new DayLeader(epochDay, winner, normalizedValue, missing, extremes, day);
+    }
+}
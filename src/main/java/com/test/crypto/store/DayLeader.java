@@ -0,0 +1,13 @@
+package com.test.crypto.store;
+
+/**
+ * Currency with the highest normalized price on a UTC day, the later supported currency winning ties.
+ * Winner and missing are currency ids: the winner is -1 when no currency has a price on that day, and missing is
+ * the first currency without a price on that day, -1 when every currency has one.
+ * The versions are those of the data the entry was computed from.
+ */
+public record DayLeader(long epochDay, int winner, long normalizedValue, int missing,
+                        long extremesVersion, long dayVersion) {
+
+    public static final int NONE = -1;
+}
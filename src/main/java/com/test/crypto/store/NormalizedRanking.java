@@ -0,0 +1,80 @@
+package com.test.crypto.store;
+
+import com.test.crypto.model.HighestNormalizedData;
+import com.test.crypto.util.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Currencies ordered by descending normalized range, ties keeping the supported order. A currency is
+ * re-ranked only when the min or max of its series changes, so pages are read without sorting. A currency whose
+ * min price is zero has no normalized range and is left out.
+ */
+public class NormalizedRanking {
+
+    private final CurrencyRegistry registry;
+
+    private final Entry[] entries;
+
+    // ids are numbered in supported order, so they break ties
+    private final TreeSet<Entry> ranking = new TreeSet<>(Comparator.comparingLong(Entry::normalizedRange).reversed()
+            .thenComparingInt(Entry::id));
+
+    public NormalizedRanking(final CurrencyRegistry registry) {
+        this.registry = registry;
+        this.entries = new Entry[registry.size()];
+    }
+
+    /**
+     * Re-ranks the currency of the series from its current min and max
+     * @param series
+     */
+    public synchronized void update(final PriceSeries series) {
+        PriceSeries.View view = series.view();
+        if (!registry.contains(series.currency()) || view.size() == 0) {
+            return;
+        }
+        int id = registry.id(series.currency());
+        long normalizedRange = FixedPoint.normalizedRange(
+                view.unscaledPrice(view.minIndex()), view.unscaledPrice(view.maxIndex()));
+        Entry entry = normalizedRange == FixedPoint.UNRANKED ? null : new Entry(id, normalizedRange);
+        Entry previous = entries[id];
+        entries[id] = entry;
+        if (null != previous) {
+            ranking.remove(previous);
+        }
+        if (null != entry) {
+            ranking.add(entry);
+        }
+    }
+
+    /**
+     * Returns a page of the ranking
+     * @param offset number of currencies to skip
+     * @param limit maximum number of currencies to return
+     * @return list of HighestNormalizedData
+     */
+    public synchronized List<HighestNormalizedData> page(final int offset, final int limit) {
+        List<HighestNormalizedData> page = new ArrayList<>(Math.min(limit, Math.max(0, ranking.size() - offset)));
+        Iterator<Entry> iterator = ranking.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            page.add(new HighestNormalizedData(FixedPoint.toBigDecimal(entry.normalizedRange()), registry.symbol(entry.id())));
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    private record Entry(int id, long normalizedRange) {
+    }
+}
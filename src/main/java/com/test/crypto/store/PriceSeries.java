@@ -0,0 +1,677 @@
+package com.test.crypto.store;
+
+import com.test.crypto.model.CandleInterval;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Columnar price series of a single currency. Timestamps are kept as epoch millis and prices as
+ * unscaled longs sharing one scale, so a price is {@code prices[i] * 10^-scale}.
+ * Hourly, daily and weekly rollup buckets and a range min/max index are maintained as rows are appended.
+ * <p>
+ * The series has a single writer and lock-free readers, which read it through a {@link View}: the rows below
+ * the size, with the columns and aggregates they were read from, so that every read of a query sees the same
+ * rows at the same scale. Columns are stored in chunks of doubling size that never move once allocated, and a
+ * row is written and indexed before the volatile size of its generation is incremented. Writers that may run
+ * concurrently, such as a file tail and the tick ingestion, take turns on the {@link #writeLock()} of the series.
+ * <p>
+ * A row older than the newest one is not published: it waits above the size, as do the rows following it,
+ * until {@link #sortByTime()} merges them into a new generation of columns and aggregates built off to the side,
+ * which is then published as a whole along with its size.
+ * <p>
+ * A compressed series seals every {@link CompressedBlock#ROWS} rows into a compressed block and only keeps the
+ * rows of the open block in the chunks. Blocks keep the scale they were sealed at and are rescaled as they are read.
+ */
+public class PriceSeries {
+
+    private static final int FIRST_CHUNK_SHIFT = 8;
+
+    private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_SHIFT;
+
+    // chunk k holds FIRST_CHUNK_SIZE << k rows, enough chunks for any int row index
+    private static final int CHUNK_COUNT = Integer.SIZE - FIRST_CHUNK_SHIFT;
+
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final long[] POW10 = LongStream.iterate(1, factor -> factor * 10).limit(19).toArray();
+
+    // shared by every series, so that a series reloaded by a refresh never repeats the version of an earlier one
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final String currency;
+
+    private final boolean compressed;
+
+    private volatile Generation generation;
+
+    // rows stored, the published ones and those waiting for sortByTime
+    private int stored;
+
+    // lowest and highest unscaled prices stored, at the scale of the columns
+    private long storedMin = Long.MAX_VALUE;
+
+    private long storedMax = Long.MIN_VALUE;
+
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    private volatile Consumer<PriceSeries> extremesListener;
+
+    private volatile Consumer<PriceSeries> changeListener;
+
+    // a lock rather than synchronized, so a virtual thread tailing a file does not pin its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public PriceSeries(final String currency) {
+        this(currency, false);
+    }
+
+    /**
+     * @param currency
+     * @param compressed whether sealed blocks of rows are compressed
+     */
+    public PriceSeries(final String currency, final boolean compressed) {
+        this.currency = currency;
+        this.compressed = compressed;
+        this.generation = new Generation(Columns.empty(0), indexShift());
+    }
+
+    /**
+     * Appends a row to the series, rescaling a copy of the existing prices if the new one has more decimals.
+     * A row older than the newest one waits for {@link #sortByTime()}, as do the rows following it.
+     * @param timestamp epoch millis
+     * @param unscaledPrice
+     * @param priceScale
+     */
+    public void append(final long timestamp, final long unscaledPrice, final int priceScale) {
+        Generation current = generation;
+        int index = stored;
+        Columns columns = current.columns;
+        if (priceScale > columns.scale()) {
+            columns = rescale(current, columns, priceScale);
+        }
+        boolean inOrder = index == current.size && (index == 0 || timestamp >= timestamp(columns, index - 1));
+        long price = Math.multiplyExact(unscaledPrice, pow10(columns.scale() - priceScale));
+        Columns storedColumns = store(columns, index, timestamp, price);
+        if (storedColumns != columns) {
+            // a block was sealed, the new columns are published before the row
+            current.columns = storedColumns;
+        }
+        stored = index + 1;
+        storedMin = Math.min(storedMin, price);
+        storedMax = Math.max(storedMax, price);
+        if (!inOrder) {
+            return;
+        }
+
+        boolean extremesChanged = current.index(index);
+        current.size = index + 1;
+        version = VERSIONS.incrementAndGet();
+        if (extremesChanged) {
+            notifyExtremesChanged();
+        }
+        notifyChanged();
+    }
+
+    public void append(final long timestamp, final BigDecimal price) {
+        append(timestamp, price.unscaledValue().longValueExact(), price.scale());
+    }
+
+    /**
+     * Tells whether the prices can be appended without overflow: each must fit an unscaled long, and every stored
+     * price must still fit once rescaled to the decimals of the new ones. Called by the writer before appending.
+     * @param prices
+     * @return whether every price can be appended
+     */
+    public boolean fits(final List<BigDecimal> prices) {
+        int scale = generation.columns.scale();
+        for (BigDecimal price : prices) {
+            if (price.unscaledValue().bitLength() >= Long.SIZE) {
+                return false;
+            }
+            scale = Math.max(scale, price.scale());
+        }
+        try {
+            long factor = pow10(scale - generation.columns.scale());
+            if (stored > 0) {
+                Math.multiplyExact(storedMin, factor);
+                Math.multiplyExact(storedMax, factor);
+            }
+            for (BigDecimal price : prices) {
+                Math.multiplyExact(price.unscaledValue().longValue(), pow10(scale - price.scale()));
+            }
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a row into columns that are not published yet or at an index that is not published yet
+     * @param target
+     * @param index
+     * @param timestamp
+     * @param unscaledPrice at the scale of the columns
+     * @return the columns holding the row, new ones when a block was sealed to make room for it
+     */
+    private Columns store(final Columns target, final int index, final long timestamp, final long unscaledPrice) {
+        Columns current = target;
+        int row = index - current.sealedRows();
+        if (compressed && row == CompressedBlock.ROWS) {
+            current = seal(current);
+            row = 0;
+        }
+        int chunk = chunk(row);
+        if (null == current.timestamps()[chunk]) {
+            current.timestamps()[chunk] = new long[FIRST_CHUNK_SIZE << chunk];
+            current.prices()[chunk] = new long[FIRST_CHUNK_SIZE << chunk];
+        }
+        current.timestamps()[chunk][offset(row)] = timestamp;
+        current.prices()[chunk][offset(row)] = unscaledPrice;
+        return current;
+    }
+
+    /**
+     * Compresses the full open block. The block directory doubles when full and is otherwise shared, as
+     * readers of the previous columns never read past their own sealed rows.
+     * @param current
+     * @return columns with an empty open block
+     */
+    private Columns seal(final Columns current) {
+        int sealedBlocks = current.sealedRows() >>> CompressedBlock.SHIFT;
+        CompressedBlock[] blocks = current.blocks();
+        if (sealedBlocks == blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(16, sealedBlocks * 2));
+        }
+        blocks[sealedBlocks] = CompressedBlock.encode(current.timestamps()[0], current.prices()[0], current.scale());
+        return new Columns(new long[CHUNK_COUNT][], new long[CHUNK_COUNT][], current.scale(), blocks,
+                current.sealedRows() + CompressedBlock.ROWS);
+    }
+
+    /**
+     * Publishes a copy of the columns with every open price rescaled, readers keep using the columns they read.
+     * Sealed blocks are rescaled as they are read, their headers tell whether their prices still fit.
+     * @param current
+     * @param columns
+     * @param priceScale
+     * @return the new columns
+     */
+    private Columns rescale(final Generation current, final Columns columns, final int priceScale) {
+        long factor = pow10(priceScale - columns.scale());
+        for (int block = 0; block < columns.sealedRows() >>> CompressedBlock.SHIFT; block++) {
+            long blockFactor = pow10(priceScale - columns.blocks()[block].scale());
+            Math.multiplyExact(columns.blocks()[block].minPrice(), blockFactor);
+            Math.multiplyExact(columns.blocks()[block].maxPrice(), blockFactor);
+        }
+        long[][] prices = new long[CHUNK_COUNT][];
+        for (int chunk = 0; chunk < CHUNK_COUNT && null != columns.prices()[chunk]; chunk++) {
+            prices[chunk] = new long[FIRST_CHUNK_SIZE << chunk];
+        }
+        for (int i = 0; i < stored - columns.sealedRows(); i++) {
+            prices[chunk(i)][offset(i)] = Math.multiplyExact(columns.prices()[chunk(i)][offset(i)], factor);
+        }
+        Columns rescaled = new Columns(columns.timestamps(), prices, priceScale, columns.blocks(), columns.sealedRows());
+        if (stored > 0) {
+            storedMin = Math.multiplyExact(storedMin, factor);
+            storedMax = Math.multiplyExact(storedMax, factor);
+        }
+        current.columns = rescaled;
+        return rescaled;
+    }
+
+    /**
+     * Returns the number of rows appended out of time order, or following such a row, that wait for sortByTime
+     * @return rows
+     */
+    public int pendingRows() {
+        return stored - generation.size;
+    }
+
+    /**
+     * Publishes the rows waiting for sortByTime. They are sorted by timestamp and merged with the published
+     * rows, keeping the original order for equal timestamps, into new columns and aggregates that are built off to
+     * the side and published at once, so that readers see either the previous rows or all of them.
+     */
+    public void sortByTime() {
+        if (pendingRows() == 0) {
+            return;
+        }
+        Generation current = generation;
+        Columns columns = current.columns;
+        int published = current.size;
+        // rows are read in order first, so that compressed blocks are decoded once
+        long[] timestamps = new long[stored];
+        long[] prices = new long[stored];
+        for (int i = 0; i < stored; i++) {
+            timestamps[i] = timestamp(columns, i);
+            prices[i] = unscaledPrice(columns, i);
+        }
+        Integer[] pending = IntStream.range(published, stored).boxed().toArray(Integer[]::new);
+        Arrays.sort(pending, Comparator.comparingLong(index -> timestamps[index]));
+
+        Generation sorted = new Generation(Columns.empty(columns.scale()), indexShift());
+        int next = 0;
+        int nextPending = 0;
+        for (int i = 0; i < stored; i++) {
+            // a published row comes first on equal timestamps, it was appended first
+            int row = nextPending == pending.length
+                    || next < published && timestamps[next] <= timestamps[pending[nextPending]]
+                    ? next++ : pending[nextPending++];
+            sorted.columns = store(sorted.columns, i, timestamps[row], prices[row]);
+            sorted.index(i);
+        }
+        // the rows are counted by the generation holding them, so a reader never pairs them with another count
+        sorted.size = stored;
+        generation = sorted;
+        version = VERSIONS.incrementAndGet();
+        notifyExtremesChanged();
+        notifyChanged();
+    }
+
+    private int indexShift() {
+        return compressed ? CompressedBlock.SHIFT : RangeMinMaxIndex.BLOCK_SHIFT;
+    }
+
+    /**
+     * Registers the callback invoked after an appended row changed the min or max of the series
+     * @param listener
+     */
+    public void onExtremesChanged(final Consumer<PriceSeries> listener) {
+        this.extremesListener = listener;
+    }
+
+    /**
+     * Registers the callback invoked after rows were appended to or reordered in the series
+     * @param listener
+     */
+    public void onChanged(final Consumer<PriceSeries> listener) {
+        this.changeListener = listener;
+    }
+
+    private void notifyChanged() {
+        Consumer<PriceSeries> listener = changeListener;
+        if (null != listener) {
+            listener.accept(this);
+        }
+    }
+
+    private void notifyExtremesChanged() {
+        Consumer<PriceSeries> listener = extremesListener;
+        if (null != listener) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Returns a consistent view of the rows published so far. Rows appended later are not part of it.
+     * @return View
+     */
+    public View view() {
+        Generation current = generation;
+        // the size is read first, the columns read next hold at least as many rows
+        int rows = current.size;
+        return new View(current, current.columns, rows);
+    }
+
+    public String currency() {
+        return currency;
+    }
+
+    /**
+     * Returns the lock that writers of the series hold while appending, readers never take it
+     * @return lock
+     */
+    public ReentrantLock writeLock() {
+        return writeLock;
+    }
+
+    public int size() {
+        return generation.size;
+    }
+
+    /**
+     * Estimates the heap held by the columns and indexes of the series
+     * @return bytes
+     */
+    public long memoryBytes() {
+        Generation current = generation;
+        Columns columns = current.columns;
+        long bytes = (long) columns.blocks().length * Integer.BYTES;
+        for (int block = 0; block < columns.sealedRows() >>> CompressedBlock.SHIFT; block++) {
+            bytes += columns.blocks()[block].memoryBytes();
+        }
+        for (int chunk = 0; chunk < CHUNK_COUNT && null != columns.timestamps()[chunk]; chunk++) {
+            bytes += 2L * (FIRST_CHUNK_SIZE << chunk) * Long.BYTES;
+        }
+        return bytes
+                + current.rollups.values().stream().mapToLong(RollupTier::memoryBytes).sum()
+                + current.rangeIndex.memoryBytes();
+    }
+
+    /**
+     * Returns a counter that changes whenever the rows of the series change
+     * @return version
+     */
+    public long version() {
+        return version;
+    }
+
+    private static long timestamp(final Columns current, final int index) {
+        if (index < current.sealedRows()) {
+            return current.blocks()[index >>> CompressedBlock.SHIFT].timestamp(index & (CompressedBlock.ROWS - 1));
+        }
+        int row = index - current.sealedRows();
+        return current.timestamps()[chunk(row)][offset(row)];
+    }
+
+    private static long unscaledPrice(final Columns current, final int index) {
+        if (index < current.sealedRows()) {
+            CompressedBlock block = current.blocks()[index >>> CompressedBlock.SHIFT];
+            return block.unscaledPrice(index & (CompressedBlock.ROWS - 1)) * POW10[current.scale() - block.scale()];
+        }
+        int row = index - current.sealedRows();
+        return current.prices()[chunk(row)][offset(row)];
+    }
+
+    /**
+     * Returns the lowest or highest row of the compressed block holding [from, to) if it lies within the range,
+     * which is then the extreme of the range, read from the block header without decoding the block
+     * @param current
+     * @param from
+     * @param to
+     * @param min
+     * @return row index, -1 when the range is not within one compressed block or does not hold its extreme
+     */
+    private static int blockExtreme(final Columns current, final int from, final int to, final boolean min) {
+        if (from >= to || to > current.sealedRows() || from >>> CompressedBlock.SHIFT != (to - 1) >>> CompressedBlock.SHIFT) {
+            return -1;
+        }
+        CompressedBlock block = current.blocks()[from >>> CompressedBlock.SHIFT];
+        int row = (from & -CompressedBlock.ROWS) + (min ? block.minOffset() : block.maxOffset());
+        return row >= from && row < to ? row : -1;
+    }
+
+    /**
+     * Rows of a series published at once, read by a single query. Prices share one scale, and the aggregates only
+     * report the rows of the view, even when rows were appended since it was taken.
+     */
+    public static final class View implements SeriesRows {
+
+        private final Generation generation;
+
+        private final Columns columns;
+
+        private final int size;
+
+        private View(final Generation generation, final Columns columns, final int size) {
+            this.generation = generation;
+            this.columns = columns;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int scale() {
+            return columns.scale();
+        }
+
+        @Override
+        public long timestamp(final int index) {
+            return PriceSeries.timestamp(columns, index);
+        }
+
+        @Override
+        public long unscaledPrice(final int index) {
+            return PriceSeries.unscaledPrice(columns, index);
+        }
+
+        public BigDecimal price(final int index) {
+            return BigDecimal.valueOf(unscaledPrice(index), columns.scale());
+        }
+
+        @Override
+        public int blockExtreme(final int from, final int to, final boolean min) {
+            return PriceSeries.blockExtreme(columns, from, to, min);
+        }
+
+        /**
+         * Returns the index of the first row with a timestamp greater than or equal to the given one
+         * @param timestamp epoch millis
+         * @return index in [0, size]
+         */
+        public int lowerBound(final long timestamp) {
+            int high = size;
+            int low;
+            // whole blocks are skipped on their last timestamp, so only the block holding the bound is decoded
+            int lowBlock = 0;
+            int highBlock = Math.min(high, columns.sealedRows()) >>> CompressedBlock.SHIFT;
+            while (lowBlock < highBlock) {
+                int mid = (lowBlock + highBlock) >>> 1;
+                if (columns.blocks()[mid].lastTimestamp() < timestamp) {
+                    lowBlock = mid + 1;
+                } else {
+                    highBlock = mid;
+                }
+            }
+            low = lowBlock << CompressedBlock.SHIFT;
+            if (lowBlock < columns.sealedRows() >>> CompressedBlock.SHIFT) {
+                high = Math.min(high, low + CompressedBlock.ROWS);
+            }
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamp(mid) < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the row with the lowest price, the earliest one on ties
+         * @return row index
+         */
+        public int minIndex() {
+            return minIndex(0, size);
+        }
+
+        /**
+         * Returns the row with the highest price, the earliest one on ties
+         * @return row index
+         */
+        public int maxIndex() {
+            return maxIndex(0, size);
+        }
+
+        public int oldestIndex() {
+            return 0;
+        }
+
+        /**
+         * Returns the first row with the newest timestamp
+         * @return row index
+         */
+        public int newestIndex() {
+            return lowerBound(timestamp(size - 1));
+        }
+
+        /**
+         * Returns the row with the lowest price in [from, to), the earliest one on ties
+         * @param from
+         * @param to
+         * @return row index
+         */
+        public int minIndex(final int from, final int to) {
+            return generation.rangeIndex.min(this, from, to);
+        }
+
+        /**
+         * Returns the row with the highest price in [from, to), the earliest one on ties
+         * @param from
+         * @param to
+         * @return row index
+         */
+        public int maxIndex(final int from, final int to) {
+            return generation.rangeIndex.max(this, from, to);
+        }
+
+        /**
+         * Returns the aggregates of a UTC day, or null when the view has no row on that day
+         * @param epochDay
+         * @return RollupBucket
+         */
+        public RollupBucket day(final long epochDay) {
+            return clamp(generation.rollups.get(CandleInterval.DAY).bucket(epochDay * MILLIS_PER_DAY));
+        }
+
+        /**
+         * Returns the buckets of an interval holding a row within [from, to), each covering its whole interval
+         * @param interval
+         * @param from epoch millis, inclusive
+         * @param to epoch millis, exclusive
+         * @return buckets in time order
+         */
+        public List<RollupBucket> buckets(final CandleInterval interval, final long from, final long to) {
+            List<RollupBucket> buckets = generation.rollups.get(interval).buckets(this, size, from, to);
+            if (buckets.isEmpty() || buckets.get(buckets.size() - 1).to() <= size) {
+                return buckets;
+            }
+            List<RollupBucket> clamped = new ArrayList<>(buckets.subList(0, buckets.size() - 1));
+            RollupBucket last = clamp(buckets.get(buckets.size() - 1));
+            if (null != last) {
+                clamped.add(last);
+            }
+            return List.copyOf(clamped);
+        }
+
+        /**
+         * Restricts a bucket to the rows of the view. Only the last bucket may hold a row appended since the view
+         * was taken, which it is then rebuilt without.
+         * @param bucket
+         * @return RollupBucket, null when none of its rows is in the view
+         */
+        private RollupBucket clamp(final RollupBucket bucket) {
+            if (null == bucket || bucket.to() <= size) {
+                return bucket;
+            }
+            if (bucket.from() >= size) {
+                return null;
+            }
+            RollupBucket clamped = RollupBucket.of(bucket.start(), bucket.from());
+            while (clamped.to() < size) {
+                clamped = clamped.extend(this);
+            }
+            return clamped;
+        }
+    }
+
+    /**
+     * Columns of the series with the aggregates built over them. Appends update a generation in place, rows are
+     * reordered by building a new one.
+     */
+    private static final class Generation implements SeriesRows {
+
+        private volatile Columns columns;
+
+        // rows published, those indexed in the aggregates
+        private volatile int size;
+
+        private final Map<CandleInterval, RollupTier> rollups = new EnumMap<>(CandleInterval.class);
+
+        private final RangeMinMaxIndex rangeIndex;
+
+        // min and max rows, only to detect the rows changing them
+        private int min;
+
+        private int max;
+
+        private Generation(final Columns columns, final int indexShift) {
+            this.columns = columns;
+            this.rangeIndex = new RangeMinMaxIndex(indexShift);
+            for (CandleInterval interval : CandleInterval.values()) {
+                rollups.put(interval, new RollupTier(interval));
+            }
+        }
+
+        /**
+         * Folds the row at the given index into the aggregates. Rows must be indexed in time order.
+         * @param index
+         * @return true when the row is the new min or max of the series
+         */
+        private boolean index(final int index) {
+            boolean extremesChanged = false;
+            long price = unscaledPrice(index);
+            if (index == 0 || price < unscaledPrice(min)) {
+                min = index;
+                extremesChanged = true;
+            }
+            if (index == 0 || price > unscaledPrice(max)) {
+                max = index;
+                extremesChanged = true;
+            }
+            rangeIndex.add(this, index);
+            for (RollupTier tier : rollups.values()) {
+                tier.add(this, index);
+            }
+            return extremesChanged;
+        }
+
+        @Override
+        public long timestamp(final int index) {
+            return PriceSeries.timestamp(columns, index);
+        }
+
+        @Override
+        public long unscaledPrice(final int index) {
+            return PriceSeries.unscaledPrice(columns, index);
+        }
+
+        @Override
+        public int blockExtreme(final int from, final int to, final boolean min) {
+            return PriceSeries.blockExtreme(columns, from, to, min);
+        }
+    }
+
+    private static int chunk(final int index) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(index + FIRST_CHUNK_SIZE) - FIRST_CHUNK_SHIFT;
+    }
+
+    private static int offset(final int index) {
+        int position = index + FIRST_CHUNK_SIZE;
+        return position - Integer.highestOneBit(position);
+    }
+
+    private static long pow10(final int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = Math.multiplyExact(result, 10L);
+        }
+        return result;
+    }
+
+    /**
+     * Chunk directories of the columns and the scale of their prices. Directories are filled in place as
+     * chunks are allocated, and replaced as a whole when prices are rescaled or a block sealed.
+     * The first sealedRows rows are held by the compressed blocks and the chunks hold the rows that follow.
+     */
+    private record Columns(long[][] timestamps, long[][] prices, int scale, CompressedBlock[] blocks, int sealedRows) {
+
+        static Columns empty(final int scale) {
+            return new Columns(new long[CHUNK_COUNT][], new long[CHUNK_COUNT][], scale, new CompressedBlock[0], 0);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.test.crypto.store;
+
+import com.test.crypto.cluster.ShardPartitioner;
+import com.test.crypto.exception.FileMissingException;
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.metrics.CryptoMetrics;
+import com.test.crypto.service.CsvProcessor;
+import io.micrometer.core.instrument.Meter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Holds the parsed price series of every supported currency, so that queries never go back to the csv files
+ */
+@Component
+@Slf4j
+@RefreshScope
+public class PriceStore {
+
+    @Value("${supported}")
+    private String supportedCurrency;
+
+    private final CsvProcessor csvProcessor;
+
+    private final ShardPartitioner shardPartitioner;
+
+    private CurrencyRegistry registry;
+
+    private AtomicReferenceArray<PriceSeries> seriesById;
+
+    private NormalizedRanking ranking;
+
+    private DailyLeaderboard leaderboard;
+
+    // shared by every store, so that a store recreated by a refresh never repeats the version of an earlier one
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    private final CryptoMetrics cryptoMetrics;
+
+    private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+    // a lock rather than synchronized, so a virtual thread parsing a file does not pin its carrier
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private final ExecutorService loadExecutor;
+
+    public PriceStore(final CsvProcessor csvProcessor, final CryptoMetrics cryptoMetrics,
+                      final ShardPartitioner shardPartitioner,
+                      @Qualifier("loadExecutor") final ExecutorService loadExecutor) {
+        this.csvProcessor = csvProcessor;
+        this.shardPartitioner = shardPartitioner;
+        this.cryptoMetrics = cryptoMetrics;
+        this.loadExecutor = loadExecutor;
+    }
+
+    /**
+     * Parses the csv files of the supported currencies in parallel, once. Currencies whose file cannot be
+     * read are retried on first access so that the error is reported to the caller.
+     */
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        // a shard only holds the currencies hashed to it, a coordinator none
+        registry = new CurrencyRegistry(Arrays.stream(supportedCurrency.split(",")).filter(shardPartitioner::owns).toList());
+        seriesById = new AtomicReferenceArray<>(registry.size());
+        ranking = new NormalizedRanking(registry);
+        leaderboard = new DailyLeaderboard(registry, id -> seriesById.get(id));
+
+        List<CompletableFuture<PriceSeries>> parsed = IntStream.range(0, registry.size())
+                .mapToObj(id -> CompletableFuture.supplyAsync(() -> csvProcessor.processCsv(registry.symbol(id)), loadExecutor))
+                .toList();
+        // series are registered in supported order, so that the store does not depend on which file finished first
+        int loaded = 0;
+        for (int id = 0; id < registry.size(); id++) {
+            try {
+                PriceSeries series = join(parsed.get(id));
+                load(id, () -> series);
+                loaded++;
+            } catch (FileMissingException | FileParseException ex) {
+                log.warn("Unable to load prices of currency {}: {}", registry.symbol(id), ex.getMessage());
+            }
+        }
+        leaderboard.precompute();
+        log.info("Loaded prices of {} currencies in {} ms", loaded, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Removes the gauges of the series, so that a store recreated by a refresh registers its own
+     */
+    @PreDestroy
+    public void close() {
+        cryptoMetrics.remove(meters);
+    }
+
+    /**
+     * Returns the price series of a supported currency
+     * @param currency
+     * @return PriceSeries
+     */
+    public PriceSeries series(final String currency) {
+        // check if the currency is supported or not
+        int id = registry.id(currency);
+
+        PriceSeries series = seriesById.get(id);
+        return null != series ? series : load(id, () -> csvProcessor.processCsv(currency));
+    }
+
+    /**
+     * Registers the series of a currency unless a concurrent caller already did
+     * @param id
+     * @param parser supplies the parsed series
+     * @return PriceSeries
+     */
+    private PriceSeries load(final int id, final Supplier<PriceSeries> parser) {
+        loadLock.lock();
+        try {
+            PriceSeries series = seriesById.get(id);
+            if (null == series) {
+                series = register(parser.get());
+                seriesById.set(id, series);
+                leaderboard.extremesChanged();
+            }
+            return series;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the currencies ranked by normalized range. Only loaded, non empty series are ranked.
+     * @return NormalizedRanking
+     */
+    public NormalizedRanking ranking() {
+        return ranking;
+    }
+
+    /**
+     * Returns the per-day leaderboard of the highest normalized price
+     * @return DailyLeaderboard
+     */
+    public DailyLeaderboard leaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Returns a counter that changes whenever the rows of any loaded series change
+     * @return version
+     */
+    public long version() {
+        return version;
+    }
+
+    public List<String> supportedCurrencies() {
+        return registry.symbols();
+    }
+
+    public CurrencyRegistry registry() {
+        return registry;
+    }
+
+    public String fileName(final String currency) {
+        return csvProcessor.fileName(currency);
+    }
+
+    private static PriceSeries join(final CompletableFuture<PriceSeries> parsed) {
+        try {
+            return parsed.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private PriceSeries register(final PriceSeries series) {
+        series.onExtremesChanged(changed -> {
+            ranking.update(changed);
+            leaderboard.extremesChanged();
+        });
+        series.onChanged(changed -> {
+            version = VERSIONS.incrementAndGet();
+            leaderboard.rowAppended(changed);
+        });
+        ranking.update(series);
+        version = VERSIONS.incrementAndGet();
+        meters.addAll(cryptoMetrics.registerSeries(series));
+        return series;
+    }
+}
@@ -0,0 +1,174 @@
+package com.test.crypto.store;
+
+import java.util.Arrays;
+
+/**
+ * Range min/max index over the prices of a series. Rows are grouped in blocks of 2^blockShift rows and a
+ * segment tree keeps the min and max row of every block range, so a window is answered in
+ * O(log n + block size) and appending a row updates O(log n) nodes. Ties resolve to the earliest row.
+ * The tree is replaced as a whole when it grows, so a reader always queries a complete tree.
+ */
+class RangeMinMaxIndex {
+
+    static final int BLOCK_SHIFT = 5;
+
+    private static final int NONE = -1;
+
+    private final int blockShift;
+
+    private static final int INITIAL_LEAVES = 16;
+
+    private volatile Tree tree = Tree.empty(INITIAL_LEAVES);
+
+    /**
+     * @param blockShift log2 of the rows per leaf, the rows of a compressed block so that nodes hold block extremes
+     */
+    RangeMinMaxIndex(final int blockShift) {
+        this.blockShift = blockShift;
+    }
+
+    /**
+     * Folds the row into the index. Rows must be added in index order.
+     * @param series
+     * @param row
+     */
+    void add(final SeriesRows series, final int row) {
+        int block = row >>> blockShift;
+        Tree current = tree;
+        if (block >= current.leaves()) {
+            current = grow(series, current);
+            tree = current;
+        }
+        int[] minRows = current.minRows();
+        int[] maxRows = current.maxRows();
+        int node = current.leaves() + block;
+        minRows[node] = lower(series, minRows[node], row);
+        maxRows[node] = higher(series, maxRows[node], row);
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            minRows[node] = lower(series, minRows[2 * node], minRows[2 * node + 1]);
+            maxRows[node] = higher(series, maxRows[2 * node], maxRows[2 * node + 1]);
+        }
+    }
+
+    long memoryBytes() {
+        Tree current = tree;
+        return (long) (current.minRows().length + current.maxRows().length) * Integer.BYTES;
+    }
+
+    /**
+     * Returns the row with the lowest price in [from, to)
+     * @param series rows holding at least the first to rows
+     * @param from
+     * @param to
+     * @return row index
+     */
+    int min(final SeriesRows series, final int from, final int to) {
+        return query(series, from, to, tree, true);
+    }
+
+    /**
+     * Returns the row with the highest price in [from, to)
+     * @param series rows holding at least the first to rows
+     * @param from
+     * @param to
+     * @return row index
+     */
+    int max(final SeriesRows series, final int from, final int to) {
+        return query(series, from, to, tree, false);
+    }
+
+    private int query(final SeriesRows series, final int from, final int to, final Tree current, final boolean min) {
+        int[] rows = min ? current.minRows() : current.maxRows();
+        int leaves = current.leaves();
+        int firstFullBlock = (from + (1 << blockShift) - 1) >>> blockShift;
+        int endFullBlock = to >>> blockShift;
+        if (firstFullBlock >= endFullBlock) {
+            return scan(series, NONE, from, to, min);
+        }
+        int result = scan(series, NONE, from, firstFullBlock << blockShift, min);
+        // blocks are visited out of order, pick keeps the earliest row on ties
+        for (int low = firstFullBlock + leaves, high = endFullBlock + leaves; low < high; low >>>= 1, high >>>= 1) {
+            if ((low & 1) == 1) {
+                result = pick(series, result, rows[low++], min);
+            }
+            if ((high & 1) == 1) {
+                result = pick(series, result, rows[--high], min);
+            }
+        }
+        return scan(series, result, endFullBlock << blockShift, to, min);
+    }
+
+    /**
+     * Folds rows following the current result, reading each price once
+     * @param series
+     * @param result current row, NONE if there is none
+     * @param from
+     * @param to
+     * @param min
+     * @return row index
+     */
+    private int scan(final SeriesRows series, final int result, final int from, final int to, final boolean min) {
+        int extreme = series.blockExtreme(from, to, min);
+        if (extreme != NONE) {
+            return pick(series, result, extreme, min);
+        }
+        int best = result;
+        long bestPrice = best == NONE ? 0 : series.unscaledPrice(best);
+        for (int row = from; row < to; row++) {
+            long price = series.unscaledPrice(row);
+            // rows follow the current result, so an equal price keeps it
+            if (best == NONE || (min ? price < bestPrice : price > bestPrice)) {
+                best = row;
+                bestPrice = price;
+            }
+        }
+        return best;
+    }
+
+    private int pick(final SeriesRows series, final int a, final int b, final boolean min) {
+        return min ? lower(series, a, b) : higher(series, a, b);
+    }
+
+    private int lower(final SeriesRows series, final int a, final int b) {
+        if (a == NONE || b == NONE) {
+            return a == NONE ? b : a;
+        }
+        long priceA = series.unscaledPrice(a);
+        long priceB = series.unscaledPrice(b);
+        return priceA < priceB || (priceA == priceB && a < b) ? a : b;
+    }
+
+    private int higher(final SeriesRows series, final int a, final int b) {
+        if (a == NONE || b == NONE) {
+            return a == NONE ? b : a;
+        }
+        long priceA = series.unscaledPrice(a);
+        long priceB = series.unscaledPrice(b);
+        return priceA > priceB || (priceA == priceB && a < b) ? a : b;
+    }
+
+    private Tree grow(final SeriesRows series, final Tree current) {
+        int leaves = current.leaves() * 2;
+        Tree grown = Tree.empty(leaves);
+        int[] minRows = grown.minRows();
+        int[] maxRows = grown.maxRows();
+        System.arraycopy(current.minRows(), current.leaves(), minRows, leaves, current.leaves());
+        System.arraycopy(current.maxRows(), current.leaves(), maxRows, leaves, current.leaves());
+        for (int node = leaves - 1; node > 0; node--) {
+            minRows[node] = lower(series, minRows[2 * node], minRows[2 * node + 1]);
+            maxRows[node] = higher(series, maxRows[2 * node], maxRows[2 * node + 1]);
+        }
+        return grown;
+    }
+
+    private record Tree(int leaves, int[] minRows, int[] maxRows) {
+
+        static Tree empty(final int leaves) {
+            int[] minRows = new int[2 * leaves];
+            int[] maxRows = new int[2 * leaves];
+            Arrays.fill(minRows, NONE);
+            Arrays.fill(maxRows, NONE);
+            return new Tree(leaves, minRows, maxRows);
+        }
+    }
+}
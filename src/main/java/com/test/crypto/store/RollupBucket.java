@@ -0,0 +1,26 @@
+package com.test.crypto.store;
+
+/**
+ * Aggregates of one rollup interval of a price series, starting at epoch millis start. The rows of the
+ * bucket are [from, to) and min, max, first and last are row indexes into the series.
+ */
+public record RollupBucket(long start, int from, int to, int min, int max, int first, int last) {
+
+    /**
+     * Returns the bucket extended with the row appended at index to
+     * @param series
+     * @return RollupBucket
+     */
+    RollupBucket extend(final SeriesRows series) {
+        long price = series.unscaledPrice(to);
+        return new RollupBucket(start, from, to + 1,
+                price < series.unscaledPrice(min) ? to : min,
+                price > series.unscaledPrice(max) ? to : max,
+                first,
+                to);
+    }
+
+    static RollupBucket of(final long start, final int index) {
+        return new RollupBucket(start, index, index + 1, index, index, index, index);
+    }
+}
@@ -0,0 +1,126 @@
+package com.test.crypto.store;
+
+import com.test.crypto.model.CandleInterval;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time ordered buckets of one interval of a series. As rows are indexed in time order, a row either extends
+ * the last bucket or opens the next one, so the buckets form an array sorted by start that is searched
+ * by bisection. Buckets are immutable and replaced when extended, so readers never see a partial update.
+ * The buckets array is published before the count, a reader reading the count first sees a filled array.
+ */
+class RollupTier {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // object header, start and six row indexes
+    private static final int BUCKET_BYTES = 48;
+
+    private final CandleInterval interval;
+
+    private volatile RollupBucket[] buckets = new RollupBucket[INITIAL_CAPACITY];
+
+    private volatile int count;
+
+    RollupTier(final CandleInterval interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Folds the row into its bucket. Rows must be added in time order.
+     * @param series
+     * @param row
+     */
+    void add(final SeriesRows series, final int row) {
+        long start = interval.start(series.timestamp(row));
+        if (count > 0 && buckets[count - 1].start() == start) {
+            buckets[count - 1] = buckets[count - 1].extend(series);
+            return;
+        }
+        RollupBucket[] current = buckets;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+        }
+        current[count] = RollupBucket.of(start, row);
+        buckets = current;
+        count++;
+    }
+
+    long memoryBytes() {
+        return (long) count * BUCKET_BYTES + (long) buckets.length * Integer.BYTES;
+    }
+
+    /**
+     * Returns the bucket starting at the given epoch millis, or null when it holds no row
+     * @param start
+     * @return RollupBucket
+     */
+    RollupBucket bucket(final long start) {
+        int size = count;
+        RollupBucket[] current = buckets;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (current[mid].start() < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && current[low].start() == start ? current[low] : null;
+    }
+
+    /**
+     * Returns the buckets holding a row within [from, to) among the first rows of the series. The last bucket
+     * returned may also hold later rows.
+     * @param series
+     * @param rows number of rows to search
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return buckets in time order
+     */
+    List<RollupBucket> buckets(final SeriesRows series, final int rows, final long from, final long to) {
+        int size = count;
+        RollupBucket[] current = buckets;
+
+        // buckets opened by later rows are left out
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (current[mid].from() < rows) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        size = low;
+
+        // first bucket whose last row is not before from, compared on row timestamps to avoid overflowing
+        low = 0;
+        high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.timestamp(Math.min(current[mid].last(), rows - 1)) < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int first = low;
+
+        high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (series.timestamp(current[mid].first()) < to) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return List.of(Arrays.copyOfRange(current, first, low));
+    }
+}
@@ -0,0 +1,20 @@
+package com.test.crypto.store;
+
+/**
+ * Rows of a price series as read by its aggregates, all at the same scale
+ */
+interface SeriesRows {
+
+    long timestamp(int index);
+
+    long unscaledPrice(int index);
+
+    /**
+     * Returns the lowest or highest row of [from, to) when it can be read without scanning the range
+     * @param from
+     * @param to
+     * @param min
+     * @return row index, -1 when the range has to be scanned
+     */
+    int blockExtreme(int from, int to, boolean min);
+}
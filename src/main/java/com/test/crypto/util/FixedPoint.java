@@ -0,0 +1,74 @@
+package com.test.crypto.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed point arithmetic over unscaled prices of one series. Normalized values are returned as longs
+ * with {@link #NORMALIZED_SCALE} decimals, rounded HALF_UP exactly like
+ * {@code BigDecimal.divide(divisor, 2, RoundingMode.HALF_UP)}.
+ */
+public final class FixedPoint {
+
+    public static final int NORMALIZED_SCALE = 2;
+
+    /**
+     * Normalized range of a series whose min is not positive, which is left out of rankings
+     */
+    public static final long UNRANKED = Long.MIN_VALUE;
+
+    private static final long NORMALIZED_FACTOR = 100;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Calculates the normalized value of a price, i.e. (price-min)/(max-min)
+     * @param price
+     * @param min
+     * @param max
+     * @return normalized value with NORMALIZED_SCALE decimals, 0 for a flat series whose min is its max
+     */
+    public static long normalize(final long price, final long min, final long max) {
+        return max == min ? 0 : divideHalfUp(price - min, max - min);
+    }
+
+    /**
+     * Calculates the normalized range of a series, i.e. (max-min)/min
+     * @param min
+     * @param max
+     * @return normalized range with NORMALIZED_SCALE decimals, UNRANKED when min is not positive
+     */
+    public static long normalizedRange(final long min, final long max) {
+        // a range relative to a zero price is undefined
+        return min <= 0 ? UNRANKED : divideHalfUp(max - min, min);
+    }
+
+    public static BigDecimal toBigDecimal(final long normalized) {
+        return BigDecimal.valueOf(normalized, NORMALIZED_SCALE);
+    }
+
+    /**
+     * Divides two values sharing the same scale, rounding the quotient HALF_UP to NORMALIZED_SCALE decimals
+     * @param dividend
+     * @param divisor
+     * @return quotient with NORMALIZED_SCALE decimals
+     */
+    public static long divideHalfUp(final long dividend, final long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (dividend > Long.MAX_VALUE / NORMALIZED_FACTOR || dividend < -Long.MAX_VALUE / NORMALIZED_FACTOR) {
+            return BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), NORMALIZED_SCALE, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+        }
+        long scaled = dividend * NORMALIZED_FACTOR;
+        long quotient = scaled / divisor;
+        long remainder = Math.abs(scaled % divisor);
+        // HALF_UP rounds away from zero when the discarded fraction is at least one half
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (scaled < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,173 @@
+package com.test.crypto.cluster;
+
+import com.test.crypto.CryptoApplication;
+import com.test.crypto.model.HighestNormalizedData;
+import io.restassured.RestAssured;
+import io.restassured.common.mapper.TypeRef;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Runs a coordinator in front of two shards on localhost
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("it")
+class ClusterTest {
+
+    private final static String BASE_URI = "http://localhost";
+
+    private static final int SHARD_COUNT = 2;
+
+    private static final List<String> SHARD_URLS = new ArrayList<>();
+
+    private static final List<ConfigurableApplicationContext> SHARDS = new ArrayList<>();
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startShards() {
+        // shards only need the number of shards, their urls are known once they listen on a random port
+        List<String> placeholders = IntStream.range(0, SHARD_COUNT).mapToObj(i -> BASE_URI + ":" + (i + 1)).toList();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            ConfigurableApplicationContext shard = new SpringApplicationBuilder(CryptoApplication.class)
+                    .profiles("it")
+                    .properties("server.port=0",
+                            "crypto.cluster.role=SHARD",
+                            "crypto.cluster.shards=" + String.join(",", placeholders),
+                            "crypto.cluster.shard-index=" + i)
+                    .run();
+            SHARDS.add(shard);
+            SHARD_URLS.add(BASE_URI + ":" + shard.getEnvironment().getRequiredProperty("local.server.port"));
+        }
+    }
+
+    @AfterAll
+    static void stopShards() {
+        SHARDS.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @DynamicPropertySource
+    static void coordinator(final DynamicPropertyRegistry registry) {
+        registry.add("crypto.cluster.role", () -> "COORDINATOR");
+        registry.add("crypto.cluster.shards", () -> String.join(",", SHARD_URLS));
+    }
+
+    @BeforeEach
+    public void configureRestAssured() {
+        RestAssured.baseURI = BASE_URI;
+        RestAssured.port = port;
+    }
+
+    @Test
+    void shouldForwardStatisticsToOwningShard() {
+        given().queryParam("currency", "BTC")
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("oldestPrice", Matchers.is(46813.21F))
+                .body("newestPrice", Matchers.is(38415.79F))
+                .body("minPrice", Matchers.is(33276.59F))
+                .body("maxPrice", Matchers.is(47722.66F));
+    }
+
+    @Test
+    void shouldThrowCurrencyUnsupportedException() {
+        given().queryParam("currency", "ABCD")
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.is("Currency not supported"));
+    }
+
+    @Test
+    void shouldMergeHighestNormalizedCryptoOfShards() {
+        given().queryParam("date", "2022-01-03")
+                .get("/api/max-normalized-range")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("currency", Matchers.is("ETH"))
+                .body("normalizedRange", Matchers.is(1.00F));
+    }
+
+    @Test
+    void shouldMergeSortedNormalizedListOfShards() {
+        List<HighestNormalizedData> all = given().get("/api/normalized-list").
+                body().as(new TypeRef<>() {
+                });
+
+        List<HighestNormalizedData> page = given().queryParam("offset", 1)
+                .queryParam("limit", 2)
+                .get("/api/normalized-list").
+                body().as(new TypeRef<>() {
+                });
+
+        Assertions.assertEquals(5, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            Assertions.assertTrue(all.get(i - 1).normalizedRange().compareTo(all.get(i).normalizedRange()) >= 0);
+        }
+        Assertions.assertEquals(all.subList(1, 3), page);
+    }
+
+    @Test
+    void shouldForwardTicksToOwningShards() {
+        // the newest prices again, an hour later, so that no other query changes
+        given().contentType("application/json")
+                .body("[{\"currency\":\"XRP\",\"timestamp\":1643594400000,\"price\":0.5867},"
+                        + "{\"currency\":\"BTC\",\"timestamp\":1643662800000,\"price\":38415.79}]")
+                .post("/api/ticks")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+
+        given().queryParam("currency", "BTC")
+                .queryParam("from", 1643662800000L)
+                .queryParam("to", 1643662800001L)
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("oldestPrice", Matchers.is(38415.79F));
+    }
+
+    @Test
+    void shouldRelayExportOfOwningShards() {
+        // BTC and XRP are held by different shards
+        String body = given().queryParam("currency", "BTC", "XRP")
+                .queryParam("from", 1641009600000L)
+                .queryParam("to", 1641024000000L)
+                .get("/api/export")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .contentType("application/x-ndjson")
+                .extract().asString();
+
+        Assertions.assertEquals("""
+                {"currency":"BTC","timestamp":1641009600000,"price":46813.21}
+                {"currency":"BTC","timestamp":1641020400000,"price":46979.61}
+                {"currency":"XRP","timestamp":1641016800000,"price":0.8420}
+                """, body);
+    }
+}
@@ -41,6 +41,16 @@ class CryptoApiTest {
                 .body("message", Matchers.is("Currency not supported"));
     }
 
+    @Test
+    void shouldThrowCurrencyUnsupportedExceptionForPartialSymbol() {
+        given().queryParam("currency", "BT")
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.is("Currency not supported"));
+    }
+
     @Test
     void shouldThrowInvalidDateException() {
         given().queryParam("date", "2022-21-01")
@@ -76,6 +86,177 @@ class CryptoApiTest {
                 .body("maxPrice", Matchers.is(47722.66F));
     }
 
+    @Test
+    void shouldFetchStatisticsBatchWithPartialFailure() {
+        given().queryParam("currency", "BTC", "ABCD")
+                .get("/api/statistics/batch")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("BTC.statistics.minPrice", Matchers.is(33276.59F))
+                .body("BTC.statistics.maxPrice", Matchers.is(47722.66F))
+                .body("ABCD.error", Matchers.is("Currency not supported"));
+    }
+
+    @Test
+    void shouldFetchStatisticsWithinTimeWindow() {
+        given().queryParam("currency", "BTC")
+                .queryParam("from", 1640995200000L)
+                .queryParam("to", 1641081600000L)
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("oldestPrice", Matchers.is(46813.21F))
+                .body("newestPrice", Matchers.is(47023.24F))
+                .body("minPrice", Matchers.is(46813.21F))
+                .body("maxPrice", Matchers.is(47143.98F));
+    }
+
+    @Test
+    void shouldExportPriceRowsAsNdjson() {
+        String body = given().queryParam("currency", "BTC")
+                .queryParam("from", 1640995200000L)
+                .queryParam("to", 1641031200000L)
+                .get("/api/export")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .contentType("application/x-ndjson")
+                .extract().asString();
+
+        Assertions.assertEquals("""
+                {"currency":"BTC","timestamp":1641009600000,"price":46813.21}
+                {"currency":"BTC","timestamp":1641020400000,"price":46979.61}
+                """, body);
+    }
+
+    @Test
+    void shouldFetchDailyCandles() {
+        given().queryParam("currency", "BTC")
+                .queryParam("interval", "DAY")
+                .queryParam("from", 1640995200000L)
+                .queryParam("to", 1641081600000L)
+                .get("/api/candles")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", Matchers.is(1))
+                .body("[0].timestamp", Matchers.is(1640995200000L))
+                .body("[0].open", Matchers.is(46813.21F))
+                .body("[0].high", Matchers.is(47143.98F))
+                .body("[0].low", Matchers.is(46813.21F))
+                .body("[0].close", Matchers.is(47023.24F));
+    }
+
+    @Test
+    void shouldFetchRollingAnalytics() {
+        given().queryParam("currency", "BTC")
+                .queryParam("window", 2)
+                .queryParam("from", 1641009600000L)
+                .queryParam("to", 1641034800001L)
+                .get("/api/analytics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("points.size()", Matchers.is(4))
+                .body("points[1].sma", Matchers.is(46896.41F))
+                .body("points[2].windowMax", Matchers.is(47143.98F))
+                .body("points[3].windowMin", Matchers.is(46871.09F))
+                .body("points[3].drawdown", Matchers.is(0.01F))
+                .body("maxDrawdown", Matchers.is(0.01F));
+    }
+
+    @Test
+    void shouldFetchCorrelation() {
+        given().queryParam("currency", "BTC", "ETH", "BTC")
+                .queryParam("interval", "DAY")
+                .get("/api/correlation")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("currencies", Matchers.contains("BTC", "ETH"))
+                .body("observations", Matchers.greaterThan(20))
+                .body("correlations[0][0]", Matchers.is(1.0F))
+                .body("correlations[1][1]", Matchers.is(1.0F))
+                .body("correlations[0][1]", Matchers.greaterThan(0F));
+    }
+
+    @Test
+    void shouldIngestTicks() {
+        // the newest XRP price again, an hour later, so that no other query changes
+        given().contentType("application/json")
+                .body("[{\"currency\":\"XRP\",\"timestamp\":1643594400000,\"price\":0.5867}]")
+                .post("/api/ticks")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.NO_CONTENT.value());
+
+        given().queryParam("currency", "XRP")
+                .queryParam("from", 1643594400000L)
+                .queryParam("to", 1643594400001L)
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("oldestPrice", Matchers.is(0.5867F))
+                .body("maxPrice", Matchers.is(0.5867F));
+    }
+
+    @Test
+    void shouldRejectTickOlderThanNewestPrice() {
+        given().contentType("application/json")
+                .body("[{\"currency\":\"BTC\",\"timestamp\":1641009600000,\"price\":46813.21}]")
+                .post("/api/ticks")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.startsWith("Tick of currency BTC at 1641009600000 is older than its newest price"));
+    }
+
+    @Test
+    void shouldRejectWholeBatchWithTickOlderThanNewestPrice() {
+        given().contentType("application/json")
+                .body("[{\"currency\":\"XRP\",\"timestamp\":1643601600000,\"price\":0.5867},"
+                        + "{\"currency\":\"BTC\",\"timestamp\":1641009600000,\"price\":46813.21}]")
+                .post("/api/ticks")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+
+        // the valid XRP tick of the rejected batch is not appended either
+        given().queryParam("currency", "XRP")
+                .queryParam("from", 1643601600000L)
+                .queryParam("to", 1643601600001L)
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.startsWith("No record found in csv"));
+    }
+
+    @Test
+    void shouldRejectWholeBatchWithPriceThatCannotBeStored() {
+        given().contentType("application/json")
+                .body("[{\"currency\":\"XRP\",\"timestamp\":1643608800000,\"price\":0.5867},"
+                        + "{\"currency\":\"XRP\",\"timestamp\":1643612400000,\"price\":12345678901234567890.5}]")
+                .post("/api/ticks")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.is("Prices of the ticks of currency XRP cannot be stored at the scale of its series"));
+
+        // neither tick of the rejected batch is appended
+        given().queryParam("currency", "XRP")
+                .queryParam("from", 1643608800000L)
+                .queryParam("to", 1643612400001L)
+                .get("/api/statistics")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.startsWith("No record found in csv"));
+    }
+
     @Test
     void shouldFindHighestNormalizedCrypto() {
         given().queryParam("date", "2022-01-03")
@@ -87,6 +268,31 @@ class CryptoApiTest {
                 .body("normalizedRange", Matchers.is(1.00F));
     }
 
+    @Test
+    void shouldFindHighestNormalizedCryptoPerDay() {
+        given().queryParam("from", "2022-01-03")
+                .queryParam("to", "2022-01-03")
+                .get("/api/max-normalized-range/daily")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.OK.value())
+                .body("size()", Matchers.is(1))
+                .body("[0].date", Matchers.is("2022-01-03"))
+                .body("[0].currency", Matchers.is("ETH"))
+                .body("[0].normalizedRange", Matchers.is(1.00F));
+    }
+
+    @Test
+    void shouldThrowRecordMissingExceptionWhenSkippingMissingCryptos() {
+        given().queryParam("date", "2023-03-01")
+                .queryParam("skipMissing", true)
+                .get("/api/max-normalized-range")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.is("No record found in csv files for date 2023-03-01"));
+    }
+
     @Test
     void shouldFetchsSortedNormalizedList() {
         List<HighestNormalizedData> response = given().get("/api/normalized-list").
@@ -96,4 +302,29 @@ class CryptoApiTest {
         Assertions.assertEquals(5, response.size());
     }
 
+    @Test
+    void shouldFetchPageOfSortedNormalizedList() {
+        List<HighestNormalizedData> all = given().get("/api/normalized-list").
+                body().as(new TypeRef<>() {
+                });
+
+        List<HighestNormalizedData> page = given().queryParam("offset", 1)
+                .queryParam("limit", 2)
+                .get("/api/normalized-list").
+                body().as(new TypeRef<>() {
+                });
+
+        Assertions.assertEquals(all.subList(1, 3), page);
+    }
+
+    @Test
+    void shouldThrowInvalidParameterExceptionForNegativeLimit() {
+        given().queryParam("limit", -1)
+                .get("/api/normalized-list")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.BAD_REQUEST.value())
+                .body("message", Matchers.is("Offset and limit must not be negative"));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.store.PriceSeries;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that a file parsed in chunks of any size yields the same series as a sequential parse
+ */
+class ChunkedCsvLoaderTest {
+
+    private static final long SEED = 20231101L;
+
+    private static final int ROWS = 5_000;
+
+    private static final String PARTIAL_ROW = "1641009600001,BTC,12.3";
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Random random = new Random(SEED);
+        StringBuilder csv = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < ROWS; i++) {
+            // out of time order and with a varying number of decimals
+            csv.append(1641009600000L + random.nextInt(ROWS) * 3_600_000L).append(",BTC,")
+                    .append(random.nextInt(50_000)).append('.').append(random.nextInt(1_000)).append('\n');
+        }
+        // a row still being written is left to the tail
+        csv.append(PARTIAL_ROW);
+        file = directory.resolve("BTC_values.csv");
+        Files.writeString(file, csv);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 37, 4_096, 1 << 20})
+    void shouldMatchSequentialParse(final long chunkBytes) throws IOException {
+        PriceSeries expected = new PriceSeries("BTC");
+        new PriceFileTail(file, expected).poll();
+
+        PriceSeries actual = new PriceSeries("BTC");
+        long offset = new ChunkedCsvLoader(file, chunkBytes, ForkJoinPool.commonPool()).load(actual);
+
+        Assertions.assertEquals(Files.size(file) - PARTIAL_ROW.length(), offset);
+        Assertions.assertEquals(ROWS, actual.size());
+        PriceSeries.View expectedView = expected.view();
+        PriceSeries.View actualView = actual.view();
+        for (int i = 0; i < ROWS; i++) {
+            Assertions.assertEquals(expectedView.timestamp(i), actualView.timestamp(i));
+            Assertions.assertEquals(expectedView.price(i), actualView.price(i));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that rows are parsed into primitives and that malformed rows fail as a parse error of their line
+ */
+class CsvPriceParserTest {
+
+    private static final String HEADER = "timestamp,symbol,price\n";
+
+    @Test
+    void shouldParseRows() throws IOException {
+        List<long[]> rows = parse(HEADER + "1641009600000,BTC,46813.21\n9223372036854775807,BTC,9223372036854775807");
+
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertArrayEquals(new long[]{1641009600000L, 4681321, 2}, rows.get(0));
+        Assertions.assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MAX_VALUE, 0}, rows.get(1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // timestamp and price overflowing a long
+            "9223372036854775808,BTC,46813.21",
+            "1641009600000,BTC,9223372036854775.808",
+            // empty fields
+            "1641009600000,BTC,",
+            "1641009600000,BTC,.",
+            ",BTC,46813.21",
+            "1641009600000,BTC",
+            "1641009600000,BTC,4681a.21"})
+    void shouldRejectMalformedRow(final String row) {
+        FileParseException ex = Assertions.assertThrows(FileParseException.class,
+                () -> parse(HEADER + "1641009600000,BTC,46813.21\n" + row + "\n"));
+
+        Assertions.assertEquals("Error occurred while reading csv file BTC_values.csv at line 3", ex.getMessage());
+    }
+
+    private static List<long[]> parse(final String csv) throws IOException {
+        List<long[]> rows = new ArrayList<>();
+        new CsvPriceParser("BTC_values.csv", (timestamp, price, scale) -> rows.add(new long[]{timestamp, price, scale}))
+                .parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        return rows;
+    }
+}
@@ -0,0 +1,93 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.store.PriceSeries;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checks that a tail parses the rows appended since its last poll, waits for a partial last row and skips
+ * a malformed row without losing the rows that follow it
+ */
+class PriceFileTailTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long START = 1641009600000L;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private PriceSeries series;
+
+    private PriceFileTail tail;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("BTC_values.csv");
+        Files.writeString(file, "timestamp,symbol,price\n" + row(0, "46813.21"));
+        series = new PriceSeries("BTC");
+        tail = new PriceFileTail(file, series);
+        tail.poll();
+    }
+
+    @Test
+    void shouldParseAppendedRows() throws IOException {
+        append(row(1, "46979.61") + row(2, "47001.5"));
+
+        Assertions.assertEquals(2, tail.poll());
+        Assertions.assertEquals(0, tail.poll());
+        Assertions.assertEquals(3, series.size());
+        Assertions.assertEquals(Files.size(file), tail.offset());
+        Assertions.assertEquals(4700150, series.view().unscaledPrice(2));
+    }
+
+    @Test
+    void shouldWaitForPartialLastRow() throws IOException {
+        append(row(1, "46979.61") + (START + 2 * HOUR) + ",BTC,470");
+
+        Assertions.assertEquals(1, tail.poll());
+        Assertions.assertEquals(2, series.size());
+
+        append("01.5\n");
+
+        Assertions.assertEquals(1, tail.poll());
+        Assertions.assertEquals(3, series.size());
+        Assertions.assertEquals(4700150, series.view().unscaledPrice(2));
+    }
+
+    @Test
+    void shouldSkipMalformedRow() throws IOException {
+        // the rows following the malformed one are parsed, the older one is published by the sort
+        append(row(2, "47001.5") + (START + 3 * HOUR) + ",BTC,47a01.5\n" + row(1, "46979.61"));
+
+        FileParseException ex = Assertions.assertThrows(FileParseException.class, () -> tail.poll());
+
+        Assertions.assertEquals("Error occurred while reading csv file BTC_values.csv at line 4", ex.getMessage());
+        Assertions.assertEquals(3, series.size());
+        Assertions.assertEquals(0, series.pendingRows());
+        Assertions.assertEquals(START + HOUR, series.view().timestamp(1));
+
+        append(row(4, "47100"));
+
+        Assertions.assertEquals(1, tail.poll());
+        Assertions.assertEquals(4, series.size());
+    }
+
+    private void append(final String rows) throws IOException {
+        Files.writeString(file, rows, StandardOpenOption.APPEND);
+    }
+
+    private static String row(final int hour, final String price) {
+        return (START + hour * HOUR) + ",BTC," + price + "\n";
+    }
+}
@@ -0,0 +1,87 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.store.PriceStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checks that rows appended to a watched price file reach the store, including those following a partial
+ * or a malformed row
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("it")
+class PriceFileWatcherTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long START = 1641009600000L;
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final Path DIRECTORY = createDirectory();
+
+    private static final Path FILE = DIRECTORY.resolve("BTC_values.csv");
+
+    @Autowired
+    private PriceStore priceStore;
+
+    @DynamicPropertySource
+    static void properties(final DynamicPropertyRegistry registry) throws IOException {
+        Files.writeString(FILE, "timestamp,symbol,price\n" + row(0, "46813.21"));
+        registry.add("supported", () -> "BTC");
+        registry.add("currency.file.filesystem-directory", DIRECTORY::toString);
+    }
+
+    @Test
+    void shouldIngestAppendedRows() throws Exception {
+        append(row(1, "46979.61") + (START + 2 * HOUR) + ",BTC,470");
+        awaitRows(2);
+
+        // the partial row is completed, then followed by a malformed row and a valid one
+        append("01.5\n" + (START + 3 * HOUR) + ",BTC,47a01.5\n" + row(4, "47100"));
+        awaitRows(4);
+
+        Assertions.assertEquals(START + 4 * HOUR, priceStore.series("BTC").view().timestamp(3));
+    }
+
+    private void awaitRows(final int rows) throws InterruptedException {
+        await(() -> priceStore.series("BTC").size() == rows);
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Rows not ingested in time");
+            Thread.sleep(20);
+        }
+    }
+
+    private static void append(final String rows) throws IOException {
+        Files.writeString(FILE, rows, StandardOpenOption.APPEND);
+    }
+
+    private static String row(final int hour, final String price) {
+        return (START + hour * HOUR) + ",BTC," + price + "\n";
+    }
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("prices");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
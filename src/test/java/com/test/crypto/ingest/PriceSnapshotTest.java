@@ -0,0 +1,106 @@
+package com.test.crypto.ingest;
+
+import com.test.crypto.exception.FileParseException;
+import com.test.crypto.store.PriceSeries;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Checks that a snapshot reads back the rows it was written from, and that a truncated or corrupt one fails
+ * as a parse error
+ */
+class PriceSnapshotTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long START = 1641009600000L;
+
+    private static final int ROWS = 1_000;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private PriceSeries series;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        series = new PriceSeries("BTC");
+        for (int i = 0; i < ROWS; i++) {
+            series.append(START + i * HOUR, 4_681_321L + i * 37L, 2);
+        }
+        file = directory.resolve("BTC_values.bin");
+        PriceSnapshot.write(series, file);
+    }
+
+    @Test
+    void shouldReadRowsWritten() throws IOException {
+        PriceSeries read = new PriceSeries("BTC");
+
+        Assertions.assertEquals(ROWS, PriceSnapshot.read(file, read::append));
+
+        PriceSeries.View expected = series.view();
+        PriceSeries.View actual = read.view();
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.scale(), actual.scale());
+        for (int i = 0; i < ROWS; i++) {
+            Assertions.assertEquals(expected.timestamp(i), actual.timestamp(i));
+            Assertions.assertEquals(expected.unscaledPrice(i), actual.unscaledPrice(i));
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - Long.BYTES);
+        }
+
+        assertParseError("Truncated price snapshot BTC_values.bin");
+    }
+
+    @Test
+    void shouldRejectRowCountOverflowingFile() throws IOException {
+        // a count whose column sizes overflow an int
+        writeInt(12, Integer.MAX_VALUE);
+
+        assertParseError("Truncated price snapshot BTC_values.bin");
+    }
+
+    @Test
+    void shouldRejectCorruptHeader() throws IOException {
+        writeInt(0, 0);
+
+        assertParseError("Invalid price snapshot BTC_values.bin");
+    }
+
+    @Test
+    void shouldRejectFileShorterThanHeader() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(8);
+        }
+
+        assertParseError("Invalid price snapshot BTC_values.bin");
+    }
+
+    private void writeInt(final long position, final int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+        }
+    }
+
+    private void assertParseError(final String message) {
+        FileParseException ex = Assertions.assertThrows(FileParseException.class,
+                () -> PriceSnapshot.read(file, (timestamp, price, scale) -> Assertions.fail("No row expected")));
+
+        Assertions.assertEquals(message, ex.getMessage());
+    }
+}
@@ -0,0 +1,120 @@
+package com.test.crypto.metrics;
+
+import com.test.crypto.cluster.ClusterRole;
+import com.test.crypto.cluster.ShardPartitioner;
+import com.test.crypto.service.CsvProcessor;
+import com.test.crypto.store.PriceSeries;
+import com.test.crypto.store.PriceStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks that the load, query and tick meters are registered and incremented, and that a store replaced by a
+ * refresh removes its gauges so that the new store's series are measured
+ */
+class CryptoMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CryptoMetrics cryptoMetrics;
+
+    private ExecutorService loadExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cryptoMetrics = new CryptoMetrics(meterRegistry);
+        loadExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loadExecutor.shutdown();
+    }
+
+    @Test
+    void shouldTimeLoadAndCountItsRows() {
+        PriceSeries series = cryptoMetrics.timeLoad("BTC", "file", () -> series(3));
+
+        Assertions.assertEquals(3, series.size());
+        Assertions.assertEquals(1, meterRegistry.get("crypto.ingest.load").tag("currency", "BTC").tag("source", "file")
+                .timer().count());
+        Assertions.assertEquals(3, meterRegistry.get("crypto.ingest.rows").tag("currency", "BTC").counter().count());
+    }
+
+    @Test
+    void shouldTimeQueries() {
+        cryptoMetrics.timeQuery("statistics", "BTC", () -> "BTC");
+        cryptoMetrics.timeQuery("statistics", "BTC", () -> "BTC");
+        cryptoMetrics.recordCoalesced("statistics");
+
+        Assertions.assertEquals(2, meterRegistry.get("crypto.query").tag("query", "statistics").tag("currency", "BTC")
+                .timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("crypto.query.coalesced").tag("query", "statistics")
+                .counter().count());
+    }
+
+    @Test
+    void shouldCountTicksAsRows() {
+        cryptoMetrics.recordTicks("BTC", 2);
+        cryptoMetrics.recordTicks("BTC", 3);
+
+        Assertions.assertEquals(5, meterRegistry.get("crypto.ingest.ticks").tag("currency", "BTC").counter().count());
+        Assertions.assertEquals(5, meterRegistry.get("crypto.ingest.rows").tag("currency", "BTC").counter().count());
+    }
+
+    @Test
+    void shouldRemoveGaugesOfStoreReplacedByRefresh() {
+        PriceStore store = store();
+        double rows = rowsGauge().value();
+        Assertions.assertTrue(rows > 0);
+
+        // a refresh destroys the store before creating the next one
+        store.close();
+        Assertions.assertTrue(meterRegistry.find("crypto.store.rows").gauges().isEmpty());
+        Assertions.assertTrue(meterRegistry.find("crypto.store.memory").gauges().isEmpty());
+
+        PriceStore refreshed = store();
+        // an hour after the newest BTC price
+        refreshed.series("BTC").append(1643662800000L, BigDecimal.ONE);
+        Assertions.assertEquals(rows + 1, rowsGauge().value());
+    }
+
+    private Gauge rowsGauge() {
+        return meterRegistry.get("crypto.store.rows").tag("currency", "BTC").gauge();
+    }
+
+    private PriceStore store() {
+        CsvProcessor csvProcessor = new CsvProcessor(cryptoMetrics, loadExecutor);
+        ReflectionTestUtils.setField(csvProcessor, "fileSuffix", "_values.csv");
+        ReflectionTestUtils.setField(csvProcessor, "directory", "/prices");
+        ReflectionTestUtils.setField(csvProcessor, "filesystemDirectory", "");
+        ReflectionTestUtils.setField(csvProcessor, "snapshotDirectory", "");
+        ReflectionTestUtils.setField(csvProcessor, "chunkSize", DataSize.ofMegabytes(64));
+
+        PriceStore store = new PriceStore(csvProcessor, cryptoMetrics,
+                new ShardPartitioner(ClusterRole.STANDALONE, List.of(), 0), loadExecutor);
+        ReflectionTestUtils.setField(store, "supportedCurrency", "BTC");
+        store.load();
+        return store;
+    }
+
+    private static PriceSeries series(final int rows) {
+        PriceSeries series = new PriceSeries("BTC");
+        for (int i = 0; i < rows; i++) {
+            series.append(1641009600000L + i, 100 + i, 0);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,104 @@
+package com.test.crypto.service;
+
+import com.test.crypto.ingest.PriceFileTail;
+import com.test.crypto.model.Statistics;
+import com.test.crypto.store.PriceSeries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that a cached result is not served once its series changed, by a tick or by a tailed file, and that
+ * a refresh clears the caches
+ */
+class QueryCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long START = 1641009600000L;
+
+    @TempDir
+    Path directory;
+
+    private QueryCache queryCache;
+
+    private PriceSeries series;
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        queryCache = new QueryCache(new SimpleMeterRegistry(), 1_000);
+        series = new PriceSeries("BTC");
+        series.append(START, new BigDecimal("46813.21"));
+    }
+
+    @Test
+    void shouldServeCachedResultWhileSeriesUnchanged() {
+        Statistics first = statistics();
+
+        Assertions.assertSame(first, statistics());
+        Assertions.assertEquals(1, computations.get());
+    }
+
+    @Test
+    void shouldRecomputeAfterTick() {
+        statistics();
+        series.append(START + HOUR, new BigDecimal("47000"));
+
+        Assertions.assertEquals(new BigDecimal("47000.00"), statistics().newestPrice());
+        Assertions.assertEquals(2, computations.get());
+    }
+
+    @Test
+    void shouldRecomputeAfterTailedRows() throws IOException {
+        Path file = directory.resolve("BTC_values.csv");
+        Files.writeString(file, "timestamp,symbol,price\n");
+        PriceFileTail tail = new PriceFileTail(file, series);
+        tail.poll();
+        statistics();
+
+        Files.writeString(file, (START + HOUR) + ",BTC,47000.5\n", StandardOpenOption.APPEND);
+        tail.poll();
+
+        Assertions.assertEquals(new BigDecimal("47000.50"), statistics().newestPrice());
+        Assertions.assertEquals(2, computations.get());
+    }
+
+    @Test
+    void shouldClearOnRefresh() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+            context.register(QueryCache.class);
+            context.refresh();
+            queryCache = context.getBean(QueryCache.class);
+            statistics();
+
+            context.publishEvent(new RefreshScopeRefreshedEvent());
+
+            statistics();
+            Assertions.assertEquals(2, computations.get());
+        }
+    }
+
+    private Statistics statistics() {
+        return queryCache.statistics("BTC", series.version(), () -> {
+            computations.incrementAndGet();
+            PriceSeries.View view = series.view();
+            return new Statistics(view.price(view.oldestIndex()), view.price(view.newestIndex()),
+                    view.price(view.minIndex()), view.price(view.maxIndex()));
+        });
+    }
+}
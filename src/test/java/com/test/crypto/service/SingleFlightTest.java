@@ -0,0 +1,112 @@
+package com.test.crypto.service;
+
+import com.test.crypto.exception.RecordMissingInCsvException;
+import com.test.crypto.metrics.CryptoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Checks that identical concurrent queries share one computation, its result and its exception
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(new CryptoMetrics(meterRegistry));
+    }
+
+    @Test
+    void shouldCoalesceIdenticalQueries() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> results = callConcurrently(() -> {
+            computations.incrementAndGet();
+            await(release);
+            return "BTC";
+        });
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            Assertions.assertEquals("BTC", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, computations.get());
+        // the key is forgotten once computed
+        Assertions.assertEquals("ETH", singleFlight.execute("statistics", "BTC", () -> "ETH"));
+    }
+
+    @Test
+    void shouldShareTheExceptionOfTheLeadingQuery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> results = callConcurrently(() -> {
+            await(release);
+            throw new RecordMissingInCsvException("No record found in csv BTC_values.csv");
+        });
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            Assertions.assertTrue(Assertions.assertThrows(Exception.class, () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    .getCause() instanceof RecordMissingInCsvException);
+        }
+    }
+
+    /**
+     * Calls the same query from every caller, returning once all callers but the leading one wait for it and
+     * failing when they do not within the timeout
+     * @param computation
+     * @return results of the callers
+     */
+    private List<CompletableFuture<String>> callConcurrently(final Supplier<String> computation)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("statistics", "BTC", computation), executor));
+        }
+        executor.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (coalesced() < CALLERS - 1) {
+            if (System.nanoTime() > deadline) {
+                Assertions.fail("Only " + coalesced() + " callers joined the leading query in " + TIMEOUT_SECONDS + "s");
+            }
+            Thread.sleep(10);
+        }
+        return results;
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter("crypto.query.coalesced", "query", "statistics").count();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            // the leading query gives up rather than hold its thread when the test fails before releasing it
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Leading query was not released");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
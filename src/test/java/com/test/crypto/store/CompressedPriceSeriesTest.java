@@ -0,0 +1,59 @@
+package com.test.crypto.store;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+/**
+ * Property based check that a compressed series answers exactly as an uncompressed one fed the same random rows
+ */
+class CompressedPriceSeriesTest {
+
+    private static final int ROWS = 5_000;
+
+    private static final int QUERIES = 1_000;
+
+    @ParameterizedTest
+    @ValueSource(longs = {20231101L, 7L, 42L})
+    void shouldMatchUncompressedSeries(final long seed) {
+        Random random = new Random(seed);
+        PriceSeries expected = new PriceSeries("BTC");
+        PriceSeries actual = new PriceSeries("BTC", true);
+
+        long timestamp = 1641009600000L;
+        long price = 4_681_321;
+        for (int i = 0; i < ROWS; i++) {
+            // mostly a regular cadence, with irregular gaps, rows out of order, price jumps and more decimals
+            int gap = random.nextInt(10);
+            timestamp += gap < 7 ? 3_600_000 : gap < 9 ? random.nextInt(10_000_000) : -random.nextInt(100_000_000);
+            price = random.nextInt(50) == 0 ? random.nextLong() >>> 24 : Math.max(0, price + random.nextInt(2_001) - 1_000);
+            int scale = random.nextInt(500) == 0 ? 1 + random.nextInt(3) : 0;
+            expected.append(timestamp, price, scale);
+            actual.append(timestamp, price, scale);
+        }
+        expected.sortByTime();
+        actual.sortByTime();
+
+        PriceSeries.View expectedView = expected.view();
+        PriceSeries.View actualView = actual.view();
+        Assertions.assertEquals(expectedView.size(), actualView.size());
+        Assertions.assertEquals(expectedView.scale(), actualView.scale());
+        for (int i = 0; i < ROWS; i++) {
+            Assertions.assertEquals(expectedView.timestamp(i), actualView.timestamp(i));
+            Assertions.assertEquals(expectedView.unscaledPrice(i), actualView.unscaledPrice(i));
+        }
+        Assertions.assertEquals(expectedView.minIndex(), actualView.minIndex());
+        Assertions.assertEquals(expectedView.maxIndex(), actualView.maxIndex());
+        for (int i = 0; i < QUERIES; i++) {
+            int from = random.nextInt(ROWS);
+            int to = from + 1 + random.nextInt(ROWS - from);
+            Assertions.assertEquals(expectedView.minIndex(from, to), actualView.minIndex(from, to));
+            Assertions.assertEquals(expectedView.maxIndex(from, to), actualView.maxIndex(from, to));
+            long bound = expectedView.timestamp(random.nextInt(ROWS)) + random.nextInt(3) - 1;
+            Assertions.assertEquals(expectedView.lowerBound(bound), actualView.lowerBound(bound));
+        }
+        Assertions.assertTrue(actual.memoryBytes() < expected.memoryBytes());
+    }
+}
@@ -0,0 +1,35 @@
+package com.test.crypto.store;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Checks that series without a price range take part in the leaderboard instead of failing its computation
+ */
+class DailyLeaderboardTest {
+
+    private static final long EPOCH_DAY = 18993;
+
+    private static final long DAY_START = EPOCH_DAY * 86_400_000L;
+
+    @Test
+    void shouldRankFlatSeries() {
+        PriceSeries single = new PriceSeries("BTC");
+        single.append(DAY_START, 4_681_321, 2);
+        PriceSeries flat = new PriceSeries("ETH");
+        flat.append(DAY_START, 371_532, 2);
+        flat.append(DAY_START + 3_600_000, 371_532, 2);
+        List<PriceSeries> series = List.of(single, flat);
+        DailyLeaderboard leaderboard = new DailyLeaderboard(new CurrencyRegistry(List.of("BTC", "ETH")), series::get);
+
+        leaderboard.precompute();
+        DayLeader leader = leaderboard.leader(EPOCH_DAY);
+
+        // both normalize to 0, the later currency wins the tie
+        Assertions.assertEquals(1, leader.winner());
+        Assertions.assertEquals(0, leader.normalizedValue());
+        Assertions.assertEquals(DayLeader.NONE, leader.missing());
+    }
+}
@@ -0,0 +1,33 @@
+package com.test.crypto.store;
+
+import com.test.crypto.model.HighestNormalizedData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Checks that a currency without a normalized range is left out of the ranking instead of failing it
+ */
+class NormalizedRankingTest {
+
+    @Test
+    void shouldLeaveOutCurrencyWithZeroMin() {
+        NormalizedRanking ranking = new NormalizedRanking(new CurrencyRegistry(List.of("BTC", "ETH")));
+        PriceSeries btc = new PriceSeries("BTC");
+        btc.append(1641009600000L, 100, 0);
+        btc.append(1641013200000L, 150, 0);
+        PriceSeries eth = new PriceSeries("ETH");
+        eth.append(1641009600000L, 3715, 0);
+        ranking.update(btc);
+        ranking.update(eth);
+        Assertions.assertEquals(2, ranking.size());
+
+        eth.append(1641013200000L, 0, 0);
+        ranking.update(eth);
+
+        Assertions.assertEquals(List.of(new HighestNormalizedData(new BigDecimal("0.50"), "BTC")),
+                ranking.page(0, Integer.MAX_VALUE));
+    }
+}
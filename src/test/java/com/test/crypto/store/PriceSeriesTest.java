@@ -0,0 +1,74 @@
+package com.test.crypto.store;
+
+import com.test.crypto.model.CandleInterval;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Checks that rows appended out of time order are only published by sortByTime, and that a view keeps its rows
+ */
+class PriceSeriesTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private static final long START = 1641009600000L;
+
+    @Test
+    void shouldPublishOutOfOrderRowsOnSort() {
+        PriceSeries series = new PriceSeries("BTC");
+        series.append(START, 100, 0);
+        series.append(START + 2 * HOUR, 300, 0);
+        PriceSeries.View before = series.view();
+
+        series.append(START + HOUR, 50, 0);
+        series.append(START + 3 * HOUR, 4005, 1);
+        Assertions.assertEquals(2, series.size());
+        Assertions.assertEquals(2, series.pendingRows());
+
+        series.sortByTime();
+        PriceSeries.View after = series.view();
+
+        Assertions.assertEquals(0, series.pendingRows());
+        Assertions.assertEquals(2, before.size());
+        Assertions.assertEquals(0, before.scale());
+        Assertions.assertEquals(START + 2 * HOUR, before.timestamp(before.newestIndex()));
+        Assertions.assertEquals(0, before.minIndex());
+        Assertions.assertEquals(2, before.buckets(CandleInterval.HOUR, START, START + 4 * HOUR).size());
+
+        Assertions.assertEquals(4, after.size());
+        Assertions.assertEquals(1, after.scale());
+        Assertions.assertEquals(START + HOUR, after.timestamp(1));
+        Assertions.assertEquals(500, after.unscaledPrice(after.minIndex()));
+        Assertions.assertEquals(3, after.maxIndex());
+        Assertions.assertEquals(4, after.buckets(CandleInterval.HOUR, START, START + 4 * HOUR).size());
+    }
+
+    @Test
+    void shouldLeaveRowsAppendedAfterViewOutOfIt() {
+        PriceSeries series = new PriceSeries("BTC");
+        series.append(START, 100, 0);
+        PriceSeries.View view = series.view();
+        series.append(START + 1, 50, 0);
+        series.append(START + 2, 200, 0);
+
+        RollupBucket bucket = view.buckets(CandleInterval.HOUR, START, START + HOUR).get(0);
+        Assertions.assertEquals(new RollupBucket(START, 0, 1, 0, 0, 0, 0), bucket);
+        Assertions.assertEquals(0, view.maxIndex());
+        Assertions.assertEquals(1, view.lowerBound(START + 1));
+    }
+
+    @Test
+    void shouldTellWhetherPricesFit() {
+        PriceSeries series = new PriceSeries("BTC");
+        series.append(START, 1_000_000_000_000_000L, 0);
+
+        Assertions.assertTrue(series.fits(List.of(new BigDecimal("0.12"))));
+        // the stored price would overflow once rescaled to four decimals
+        Assertions.assertFalse(series.fits(List.of(new BigDecimal("1"), new BigDecimal("0.0001"))));
+        Assertions.assertFalse(series.fits(List.of(new BigDecimal("12345678901234567890"))));
+        Assertions.assertEquals(1, series.size());
+    }
+}
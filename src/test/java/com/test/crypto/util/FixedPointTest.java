@@ -0,0 +1,67 @@
+package com.test.crypto.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Property based check that the fixed point math matches the BigDecimal HALF_UP results for random prices
+ */
+class FixedPointTest {
+
+    private static final long SEED = 20231101L;
+
+    private static final int SAMPLES = 10_000;
+
+    static Stream<Arguments> prices() {
+        Random random = new Random(SEED);
+        return Stream.generate(() -> {
+            int scale = random.nextInt(9);
+            long bound = random.nextBoolean() ? 1_000 : 1_000_000_000_000L;
+            long min = 1 + Math.floorMod(random.nextLong(), bound);
+            long max = min + Math.floorMod(random.nextLong(), bound);
+            long price = max == min ? min : min + Math.floorMod(random.nextLong(), max - min + 1);
+            return Arguments.of(price, min, max, scale);
+        }).limit(SAMPLES);
+    }
+
+    @ParameterizedTest
+    @MethodSource("prices")
+    void normalizedRangeShouldMatchBigDecimal(final long price, final long min, final long max, final int scale) {
+        BigDecimal minPrice = BigDecimal.valueOf(min, scale);
+        BigDecimal maxPrice = BigDecimal.valueOf(max, scale);
+
+        BigDecimal expected = (maxPrice.subtract(minPrice)).divide(minPrice, 2, RoundingMode.HALF_UP);
+
+        Assertions.assertEquals(expected, FixedPoint.toBigDecimal(FixedPoint.normalizedRange(min, max)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("prices")
+    void normalizeShouldMatchBigDecimal(final long price, final long min, final long max, final int scale) {
+        if (max == min) {
+            return;
+        }
+        BigDecimal inValue = BigDecimal.valueOf(price, scale);
+        BigDecimal minPrice = BigDecimal.valueOf(min, scale);
+        BigDecimal maxPrice = BigDecimal.valueOf(max, scale);
+
+        BigDecimal expected = (inValue.subtract(minPrice)).divide(maxPrice.subtract(minPrice), 2, RoundingMode.HALF_UP);
+
+        Assertions.assertEquals(expected, FixedPoint.toBigDecimal(FixedPoint.normalize(price, min, max)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("prices")
+    void divideHalfUpShouldMatchBigDecimalForNegativeValues(final long price, final long min, final long max, final int scale) {
+        BigDecimal expected = BigDecimal.valueOf(-price).divide(BigDecimal.valueOf(min), 2, RoundingMode.HALF_UP);
+
+        Assertions.assertEquals(expected, FixedPoint.toBigDecimal(FixedPoint.divideHalfUp(-price, min)));
+    }
+}